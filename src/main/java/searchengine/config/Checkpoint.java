@@ -0,0 +1,11 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Checkpoint {
+    private String directory = "checkpoints";
+    private int intervalSeconds = 60;
+}
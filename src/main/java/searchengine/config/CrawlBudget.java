@@ -0,0 +1,12 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class CrawlBudget {
+    private int maxPages = 50000;
+    private int maxDepth = 30;
+    private int maxDurationMinutes = 240;
+}
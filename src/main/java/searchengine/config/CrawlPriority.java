@@ -0,0 +1,7 @@
+package searchengine.config;
+
+public enum CrawlPriority {
+    BREADTH_FIRST,
+    SITEMAP,
+    INBOUND_LINKS
+}
@@ -0,0 +1,6 @@
+package searchengine.config;
+
+public enum HtmlParser {
+    JSOUP,
+    STREAMING
+}
@@ -0,0 +1,13 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Persistence {
+    private int pageBatchSize = 100;
+    private int maxInFlightMegabytes = 64;
+    private int indexBatchSize = 1000;
+    private int statusIntervalSeconds = 10;
+}
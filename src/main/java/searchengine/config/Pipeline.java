@@ -0,0 +1,11 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Pipeline {
+    private int batchSize = 20;
+    private int maxActiveBatches = 4;
+}
@@ -0,0 +1,16 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Politeness {
+    private double requestsPerSecond = 2.0;
+    private int maxConcurrency = 2;
+    private int targetLatencyMillis = 2000;
+    private int requestTimeoutMillis = 5000;
+    private int maxRetries = 3;
+    private int retryBaseDelayMillis = 1000;
+    private int maxBodyMegabytes = 5;
+}
@@ -0,0 +1,15 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Revisit {
+    private boolean enabled;
+    private int fetchBudgetPerHour = 600;
+    private int checkIntervalSeconds = 60;
+    private int initialIntervalHours = 24;
+    private int minIntervalMinutes = 60;
+    private int maxIntervalDays = 30;
+}
@@ -0,0 +1,13 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Scheduling {
+    private int maxConcurrentSites = 2;
+    private int fetchThreads = 16;
+    private int cpuThreads = 0;
+    private int dbThreads = 4;
+}
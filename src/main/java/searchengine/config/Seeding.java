@@ -0,0 +1,13 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Seeding {
+    private boolean useRobotsTxt = true;
+    private boolean useSitemaps = true;
+    private int maxSitemapUrls = 50000;
+    private int maxSitemapMegabytes = 50;
+}
@@ -13,4 +13,5 @@ import java.util.List;
 @ConfigurationProperties(prefix = "indexing-settings")
 public class SitesList {
     private List<Site> sites;
+    private CrawlBudget budget = new CrawlBudget();
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class UrlFilter {
+    private boolean keepQueryParameters = false;
+    private List<String> trackingParameters = List.of("utm_*", "gclid", "fbclid", "yclid", "ysclid", "_openstat");
+    private List<String> excludedExtensions = List.of("jpg", "jpeg", "png", "gif", "bmp", "webp", "svg", "ico",
+            "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "zip", "rar", "7z", "gz",
+            "mp3", "mp4", "avi", "mov", "css", "js", "xml", "json");
+}
@@ -12,4 +12,15 @@ import org.springframework.stereotype.Component;
 public class UserData {
     private String userAgent;
     private String referrer;
-}
\ No newline at end of file
+    private Politeness politeness = new Politeness();
+    private CrawlMode crawlMode = CrawlMode.FORK_JOIN;
+    private CrawlPriority crawlPriority = CrawlPriority.BREADTH_FIRST;
+    private HtmlParser htmlParser = HtmlParser.JSOUP;
+    private Persistence persistence = new Persistence();
+    private Pipeline pipeline = new Pipeline();
+    private Scheduling scheduling = new Scheduling();
+    private Seeding seeding = new Seeding();
+    private Checkpoint checkpoint = new Checkpoint();
+    private UrlFilter urlFilter = new UrlFilter();
+    private Revisit revisit = new Revisit();
+}
@@ -3,6 +3,9 @@ package searchengine.controllers;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import searchengine.dto.indexing.HostLimitsResponse;
+import searchengine.dto.indexing.IndexingMode;
+import searchengine.dto.indexing.IndexingProgressResponse;
 import searchengine.dto.indexing.IndexingResponse;
 import searchengine.dto.searching.SearchResponse;
 import searchengine.dto.statistics.StatisticsResponse;
@@ -20,8 +23,9 @@ public class ApiController {
     private IndexingResponse response;
 
     @GetMapping("/startIndexing")
-    public ResponseEntity<IndexingResponse> startIndexing() {
-        response = indexService.startIndexing();
+    public ResponseEntity<IndexingResponse> startIndexing(
+            @RequestParam(required = false, defaultValue = "FULL") IndexingMode mode) {
+        response = indexService.startIndexing(mode);
         return ResponseEntity.ok(response);
     }
 
@@ -38,6 +42,16 @@ public class ApiController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/hostLimits")
+    public ResponseEntity<HostLimitsResponse> getHostLimits() {
+        return ResponseEntity.ok(indexService.getHostLimits());
+    }
+
+    @GetMapping("/indexingProgress")
+    public ResponseEntity<IndexingProgressResponse> getIndexingProgress() {
+        return ResponseEntity.ok(indexService.getIndexingProgress());
+    }
+
     @GetMapping("/statistics")
     public ResponseEntity<StatisticsResponse> getStatistics() {
         StatisticsResponse response = statisticsService.getStatistics();
@@ -0,0 +1,105 @@
+package searchengine.data;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Отделяет основной текст страницы от шаблона сайта. Работает по
+ * блокам текста, выделенным {@link HtmlTextExtractor}: блоки, которые
+ * повторяются на заметной доле страниц сайта (меню, подвал, баннеры),
+ * считаются шаблонными и в индекс не попадают.
+ */
+public class BoilerplateFilter {
+    public static final int MIN_PAGES = 5;
+    private static final int SAMPLE_PAGES = 500;
+    private static final double TEMPLATE_SHARE = 0.4;
+    private final Map<Long, AtomicInteger> blockPagesCount = new ConcurrentHashMap<>();
+    private final AtomicInteger observedPages = new AtomicInteger();
+    private volatile Set<Long> templateBlocks = Set.of();
+
+    public static BoilerplateFilter fromTemplateBlocks(String serializedBlocks) {
+        BoilerplateFilter filter = new BoilerplateFilter();
+        if (serializedBlocks == null || serializedBlocks.isBlank()) {
+            return filter;
+        }
+        Set<Long> blocks = new HashSet<>();
+        for (String block : serializedBlocks.split(",")) {
+            if (!block.isBlank()) {
+                blocks.add(Long.parseUnsignedLong(block.trim(), 16));
+            }
+        }
+        filter.templateBlocks = blocks;
+        return filter;
+    }
+
+    public void observe(String blocks) {
+        if (blocks == null || observedPages.get() >= SAMPLE_PAGES) {
+            return;
+        }
+        Set<Long> pageBlocks = new HashSet<>();
+        forEachBlock(blocks, block -> pageBlocks.add(ContentFingerprint.hash64(block.toLowerCase(Locale.ROOT))));
+        for (Long block : pageBlocks) {
+            blockPagesCount.computeIfAbsent(block, key -> new AtomicInteger()).incrementAndGet();
+        }
+        observedPages.incrementAndGet();
+    }
+
+    public boolean isSampleComplete() {
+        return observedPages.get() >= SAMPLE_PAGES;
+    }
+
+    public int getObservedPages() {
+        return observedPages.get();
+    }
+
+    public void freeze() {
+        int pagesCount = observedPages.get();
+        if (pagesCount < MIN_PAGES) {
+            return;
+        }
+        int minPages = Math.max(MIN_PAGES, (int) Math.ceil(pagesCount * TEMPLATE_SHARE));
+        Set<Long> blocks = new HashSet<>();
+        blockPagesCount.forEach((block, count) -> {
+            if (count.get() >= minPages) {
+                blocks.add(block);
+            }
+        });
+        templateBlocks = blocks;
+        blockPagesCount.clear();
+    }
+
+    public int getTemplateBlocksCount() {
+        return templateBlocks.size();
+    }
+
+    public String serialize() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (Long block : templateBlocks) {
+            joiner.add(Long.toHexString(block));
+        }
+        return joiner.toString();
+    }
+
+    public String extractText(String blocks) {
+        if (blocks == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        forEachBlock(blocks, block -> {
+            if (!templateBlocks.contains(ContentFingerprint.hash64(block.toLowerCase(Locale.ROOT)))) {
+                text.append(block).append(' ');
+            }
+        });
+        return text.toString().trim();
+    }
+
+    private void forEachBlock(String blocks, Consumer<String> blockConsumer) {
+        for (String block : blocks.split("\n")) {
+            if (!block.isBlank()) {
+                blockConsumer.accept(block);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package searchengine.data;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Единый признак отмены индексации, общий для всех её участников.
+ * Отмена необратима; подписанные действия выполняются сразу при отмене,
+ * поэтому ожидающим её потокам не нужно опрашивать флаг в цикле.
+ */
+public class CancellationToken {
+    private final CompletableFuture<Void> cancellation = new CompletableFuture<>();
+
+    public void cancel() {
+        cancellation.complete(null);
+    }
+
+    public boolean isCancelled() {
+        return cancellation.isDone();
+    }
+
+    public void onCancel(Runnable action) {
+        cancellation.thenRun(action);
+    }
+}
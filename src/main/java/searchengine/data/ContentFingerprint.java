@@ -0,0 +1,74 @@
+package searchengine.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class ContentFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int SHINGLE_SIZE = 3;
+
+    private ContentFingerprint() {
+    }
+
+    public static long hash64(CharSequence text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash ^= (c & 0xff);
+            hash *= FNV_PRIME;
+            hash ^= (c >>> 8);
+            hash *= FNV_PRIME;
+        }
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        return hash;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    public static long simHash(List<String> tokens) {
+        int[] weights = new int[Long.SIZE];
+        int shingleSize = Math.min(SHINGLE_SIZE, Math.max(1, tokens.size()));
+        StringBuilder shingle = new StringBuilder();
+        for (int i = 0; i + shingleSize <= tokens.size(); i++) {
+            shingle.setLength(0);
+            for (int j = i; j < i + shingleSize; j++) {
+                shingle.append(tokens.get(j)).append(' ');
+            }
+            long featureHash = hash64(shingle);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((featureHash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long simHash = 0L;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+}
@@ -0,0 +1,114 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Контрольная точка обхода сайта: отпечатки найденных адресов и очередь
+ * ещё не обработанных страниц. Периодически сохраняется в файл, чтобы
+ * прерванный обход можно было продолжить, а не начинать заново.
+ */
+public class CrawlCheckpoint {
+    private static final int MAGIC = 0x43524b50;
+    private static final int VERSION = 2;
+    private final Path file;
+    private ScheduledExecutorService timer;
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public CrawlCheckpoint(Path directory, String siteUrl) {
+        String fileName = siteUrl.replaceFirst("^\\w+://", "").replaceAll("[^\\w.-]+", "_") + ".checkpoint";
+        this.file = directory.resolve(fileName);
+    }
+
+    public synchronized void start(Supplier<CrawlFrontier.Snapshot> snapshotSupplier, Duration interval) {
+        stop();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1000L, interval.toMillis());
+        timer.scheduleWithFixedDelay(() -> save(snapshotSupplier.get()),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    public synchronized void save(CrawlFrontier.Snapshot snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(snapshot.visited().length);
+                for (long fingerprint : snapshot.visited()) {
+                    output.writeLong(fingerprint);
+                }
+                output.writeInt(snapshot.pending().size());
+                for (CrawlFrontier.Entry entry : snapshot.pending()) {
+                    output.writeUTF(entry.url());
+                    output.writeInt(entry.depth());
+                    output.writeDouble(entry.weight());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.error("Ошибка сохранения контрольной точки " + file + ": " + ex.getMessage());
+        }
+    }
+
+    public CrawlFrontier.Snapshot load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                logger.error("Неизвестный формат контрольной точки " + file);
+                return null;
+            }
+            long[] visited = new long[input.readInt()];
+            for (int i = 0; i < visited.length; i++) {
+                visited[i] = input.readLong();
+            }
+            int pendingCount = input.readInt();
+            List<CrawlFrontier.Entry> pending = new ArrayList<>(pendingCount);
+            for (int i = 0; i < pendingCount; i++) {
+                pending.add(new CrawlFrontier.Entry(input.readUTF(), input.readInt(), input.readDouble(), 1, i));
+            }
+            return new CrawlFrontier.Snapshot(visited, pending);
+        } catch (IOException ex) {
+            logger.error("Ошибка чтения контрольной точки " + file + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.error("Ошибка удаления контрольной точки " + file + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package searchengine.data;
+
+import searchengine.config.CrawlPriority;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Граница обхода одного сайта. Хранит множество уже найденных адресов
+ * в виде 64-битных отпечатков, а не самих страниц, поэтому проверка
+ * на повтор выполняется за O(1) и не требует дерева страниц.
+ * Новые адреса ставятся в очередь с приоритетом: сначала менее глубокие
+ * страницы, внутри одного уровня — более важные по выбранному признаку.
+ * Адрес, взятый из очереди, считается обрабатываемым, пока страница не
+ * будет сохранена, поэтому при возобновлении обхода он снова попадёт в
+ * очередь.
+ */
+public class CrawlFrontier {
+    public static final double DEFAULT_WEIGHT = 0.5;
+    private final Set<Long> visited = ConcurrentHashMap.newKeySet();
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Entry> queue;
+    private final Map<String, Entry> inProgress = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong tooDeepCount = new AtomicLong();
+    private final boolean isCountingInboundLinks;
+    private final int maxDepth;
+    private final int maxPages;
+
+    public CrawlFrontier() {
+        this(CrawlPriority.BREADTH_FIRST, 0, 0);
+    }
+
+    public CrawlFrontier(CrawlPriority crawlPriority, int maxDepth, int maxPages) {
+        ToDoubleFunction<Entry> priority = getPriority(crawlPriority);
+        this.queue = new PriorityBlockingQueue<>(64, Comparator.comparingInt(Entry::depth)
+                .thenComparing(Comparator.comparingDouble(priority).reversed())
+                .thenComparingLong(Entry::sequence));
+        this.isCountingInboundLinks = crawlPriority == CrawlPriority.INBOUND_LINKS;
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+    }
+
+    public boolean offer(String url, int depth, double weight) {
+        if (maxDepth > 0 && depth > maxDepth) {
+            tooDeepCount.incrementAndGet();
+            return false;
+        }
+        if (isVisited(url)) {
+            addInboundLink(url);
+            return false;
+        }
+        if (isPageLimitReached() || !markVisited(url)) {
+            return false;
+        }
+        Entry entry = new Entry(url, depth, weight, 1, sequence.incrementAndGet());
+        pending.put(url, entry);
+        queue.add(entry);
+        return true;
+    }
+
+    public Entry poll() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            Entry current = pending.remove(entry.url());
+            if (current != null) {
+                inProgress.put(current.url(), current);
+                return current;
+            }
+        }
+        return null;
+    }
+
+    public void markDone(String url) {
+        inProgress.remove(url);
+    }
+
+    public boolean redirect(String url, String targetUrl) {
+        Entry entry = inProgress.remove(url);
+        if (!markVisited(targetUrl)) {
+            return false;
+        }
+        int depth = entry == null ? 0 : entry.depth();
+        double weight = entry == null ? DEFAULT_WEIGHT : entry.weight();
+        inProgress.put(targetUrl, new Entry(targetUrl, depth, weight, 1, sequence.incrementAndGet()));
+        return true;
+    }
+
+    public long getTooDeepCount() {
+        return tooDeepCount.get();
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public boolean isPageLimitReached() {
+        return maxPages > 0 && visited.size() >= maxPages;
+    }
+
+    public boolean markVisited(String url) {
+        return visited.add(fingerprint(url));
+    }
+
+    public boolean isVisited(String url) {
+        return visited.contains(fingerprint(url));
+    }
+
+    public int visitedCount() {
+        return visited.size();
+    }
+
+    public Snapshot snapshot() {
+        List<Entry> unfinished = new ArrayList<>(inProgress.values());
+        unfinished.addAll(pending.values());
+        long[] fingerprints = visited.stream().mapToLong(Long::longValue).toArray();
+        return new Snapshot(fingerprints, unfinished);
+    }
+
+    public void restore(Snapshot snapshot) {
+        for (long fingerprint : snapshot.visited()) {
+            visited.add(fingerprint);
+        }
+        for (Entry entry : snapshot.pending()) {
+            visited.add(fingerprint(entry.url()));
+            Entry restored = new Entry(entry.url(), entry.depth(), entry.weight(), 1, sequence.incrementAndGet());
+            if (pending.putIfAbsent(entry.url(), restored) == null) {
+                queue.add(restored);
+            }
+        }
+    }
+
+    public static long fingerprint(String url) {
+        return ContentFingerprint.hash64(url);
+    }
+
+    private void addInboundLink(String url) {
+        if (!isCountingInboundLinks) {
+            return;
+        }
+        Entry updated = pending.computeIfPresent(url, (key, entry) -> entry.withInboundLink());
+        if (updated != null && Integer.bitCount(updated.inboundLinks()) == 1) {
+            queue.add(updated);
+        }
+    }
+
+    private static ToDoubleFunction<Entry> getPriority(CrawlPriority crawlPriority) {
+        return switch (crawlPriority) {
+            case BREADTH_FIRST -> entry -> 0;
+            case SITEMAP -> Entry::weight;
+            case INBOUND_LINKS -> Entry::inboundLinks;
+        };
+    }
+
+    public record Entry(String url, int depth, double weight, int inboundLinks, long sequence) {
+        Entry withInboundLink() {
+            return new Entry(url, depth, weight, inboundLinks + 1, sequence);
+        }
+    }
+
+    public record Snapshot(long[] visited, List<Entry> pending) {
+    }
+}
@@ -0,0 +1,218 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import searchengine.config.Politeness;
+import searchengine.config.UserData;
+import searchengine.dto.indexing.HostLimit;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * Планировщик запросов к сайтам. Для каждого хоста ограничивает частоту
+ * запросов и число одновременных загрузок. Задачи, которым ещё рано
+ * выполняться, ждут в очереди хоста, а не в спящем потоке.
+ * Допустимое число одновременных загрузок подстраивается под хост по
+ * схеме AIMD: растёт на единицу за «окно» быстрых ответов и уменьшается
+ * вдвое при 429/5xx и таймаутах, одновременно увеличивая паузу между
+ * запросами. Если пул потоков отклонил задачу, вместо неё выполняется
+ * переданный с ней обработчик, чтобы отправитель мог закрыть свой учёт
+ * задач.
+ */
+@Component
+public class CrawlScheduler {
+    private static final double LATENCY_DECREASE_FACTOR = 0.75;
+    private static final double CONGESTION_DECREASE_FACTOR = 0.5;
+    private static final double MAX_SLOWDOWN = 16.0;
+    private static final Duration MAX_PAUSE = Duration.ofMinutes(5);
+    private final Politeness politeness;
+    private final Map<String, HostSlot> hosts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "crawl-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService virtualFetchExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("crawl-fetch-", 0).factory());
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public CrawlScheduler(UserData userData) {
+        this.politeness = userData.getPoliteness();
+    }
+
+    public void submit(String url, Runnable task, Executor executor, Runnable onRejected) {
+        HostSlot slot = hosts.computeIfAbsent(getHost(url), HostSlot::new);
+        slot.waiting.add(new Job(task, executor, onRejected));
+        slot.drain();
+    }
+
+    public void submitLater(String url, Runnable task, Executor executor, Runnable onRejected, Duration delay) {
+        try {
+            timer.schedule(() -> submit(url, task, executor, onRejected), delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            onRejected.run();
+        }
+    }
+
+    public void reportSuccess(String url, long latencyNanos) {
+        HostSlot slot = hosts.get(getHost(url));
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (latencyNanos <= TimeUnit.MILLISECONDS.toNanos(politeness.getTargetLatencyMillis())) {
+                slot.concurrencyLimit = Math.min(getMaxConcurrency(), slot.concurrencyLimit + 1.0 / slot.concurrencyLimit);
+                slot.slowdown = Math.max(1.0, slot.slowdown * 0.9);
+            } else {
+                slot.concurrencyLimit = Math.max(1.0, slot.concurrencyLimit * LATENCY_DECREASE_FACTOR);
+            }
+        }
+    }
+
+    public void reportCongestion(String url, Duration retryAfter) {
+        HostSlot slot = hosts.get(getHost(url));
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            slot.concurrencyLimit = Math.max(1.0, slot.concurrencyLimit * CONGESTION_DECREASE_FACTOR);
+            slot.slowdown = Math.min(MAX_SLOWDOWN, slot.slowdown * 2);
+            long pauseNanos = (retryAfter.compareTo(MAX_PAUSE) > 0 ? MAX_PAUSE : retryAfter).toNanos();
+            slot.nextFreeNanos = Math.max(slot.nextFreeNanos, System.nanoTime() + pauseNanos);
+        }
+        logger.info("Хост " + slot.host + ": сервер перегружен, лимит загрузок снижен до "
+                + (int) slot.concurrencyLimit);
+    }
+
+    public List<HostLimit> getHostLimits() {
+        return hosts.values().stream()
+                .map(HostSlot::getLimit)
+                .sorted(Comparator.comparing(HostLimit::getHost))
+                .toList();
+    }
+
+    public void setMinInterval(String url, Duration minInterval) {
+        HostSlot slot = hosts.computeIfAbsent(getHost(url), HostSlot::new);
+        synchronized (slot) {
+            slot.minIntervalNanos = minInterval.toNanos();
+        }
+    }
+
+    public void release(String url) {
+        HostSlot slot = hosts.get(getHost(url));
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            slot.active--;
+        }
+        slot.drain();
+    }
+
+    public static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (IllegalArgumentException ex) {
+            return "";
+        }
+    }
+
+    public Executor getVirtualFetchExecutor() {
+        return virtualFetchExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        virtualFetchExecutor.shutdownNow();
+    }
+
+    private long getIntervalNanos(long minIntervalNanos, double slowdown) {
+        double requestsPerSecond = politeness.getRequestsPerSecond();
+        long intervalNanos = requestsPerSecond <= 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        return (long) (Math.max(intervalNanos, minIntervalNanos) * slowdown);
+    }
+
+    private int getMaxConcurrency() {
+        return Math.max(1, politeness.getMaxConcurrency());
+    }
+
+    private record Job(Runnable task, Executor executor, Runnable onRejected) {
+    }
+
+    private class HostSlot {
+        private final String host;
+        private final Queue<Job> waiting = new ConcurrentLinkedQueue<>();
+        private int active;
+        private long nextFreeNanos = System.nanoTime();
+        private long minIntervalNanos;
+        private boolean drainScheduled;
+        private double concurrencyLimit = 1.0;
+        private double slowdown = 1.0;
+
+        HostSlot(String host) {
+            this.host = host;
+        }
+
+        void drain() {
+            while (true) {
+                Job job;
+                synchronized (this) {
+                    if (waiting.isEmpty() || active >= (int) concurrencyLimit) {
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    if (nextFreeNanos > now) {
+                        if (!drainScheduled) {
+                            drainScheduled = true;
+                            timer.schedule(this::scheduledDrain, nextFreeNanos - now, TimeUnit.NANOSECONDS);
+                        }
+                        return;
+                    }
+                    job = waiting.poll();
+                    nextFreeNanos = now + getIntervalNanos(minIntervalNanos, slowdown);
+                    active++;
+                }
+                dispatch(job);
+            }
+        }
+
+        private synchronized HostLimit getLimit() {
+            HostLimit limit = new HostLimit();
+            limit.setHost(host);
+            limit.setConcurrencyLimit((int) concurrencyLimit);
+            limit.setActive(active);
+            limit.setQueued(waiting.size());
+            limit.setIntervalMillis(TimeUnit.NANOSECONDS.toMillis(getIntervalNanos(minIntervalNanos, slowdown)));
+            return limit;
+        }
+
+        private void scheduledDrain() {
+            synchronized (this) {
+                drainScheduled = false;
+            }
+            drain();
+        }
+
+        private void dispatch(Job job) {
+            try {
+                job.executor().execute(job.task());
+            } catch (RejectedExecutionException ex) {
+                logger.warn("Хост " + host + ": задача обхода отклонена пулом потоков");
+                synchronized (this) {
+                    active--;
+                }
+                job.onRejected().run();
+            }
+        }
+    }
+}
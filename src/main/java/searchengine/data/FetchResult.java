@@ -0,0 +1,93 @@
+package searchengine.data;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+public record FetchResult(String url, int statusCode, HttpHeaders headers, byte[] body) {
+    private static final int SNIFF_LENGTH = 1024;
+
+    public String contentType() {
+        return headers.firstValue("Content-Type").orElse("");
+    }
+
+    public String charset() {
+        for (String parameter : contentType().split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                return pair[1].trim().replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    public boolean isHtml() {
+        String mediaType = contentType().split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        if (mediaType.isEmpty()) {
+            return looksLikeHtml();
+        }
+        return mediaType.equals("text/html") || mediaType.equals("application/xhtml+xml");
+    }
+
+    private boolean looksLikeHtml() {
+        String start = new String(body, 0, Math.min(body.length, SNIFF_LENGTH), StandardCharsets.ISO_8859_1)
+                .replaceFirst("^\u00ef\u00bb\u00bf", "")
+                .stripLeading()
+                .toLowerCase(Locale.ROOT);
+        return start.startsWith("<!doctype html") || start.startsWith("<html")
+                || (start.startsWith("<") && (start.contains("<html") || start.contains("<head") || start.contains("<body")));
+    }
+
+    public String etag() {
+        return headers.firstValue("ETag").orElse(null);
+    }
+
+    public String lastModified() {
+        return headers.firstValue("Last-Modified").orElse(null);
+    }
+
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    public boolean isError() {
+        return statusCode >= 400;
+    }
+
+    public boolean isTransientError() {
+        return statusCode == 429 || statusCode == 500 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    public Duration retryAfter() {
+        String value = headers.firstValue("Retry-After").orElse("").trim();
+        if (value.isEmpty()) {
+            return Duration.ZERO;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException ex) {
+            try {
+                Duration delay = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException parseException) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    public String contentHash() {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+public record FetchStream(String url, int statusCode, InputStream body) implements Closeable {
+
+    public boolean isError() {
+        return statusCode >= 400;
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
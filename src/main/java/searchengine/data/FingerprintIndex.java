@@ -0,0 +1,95 @@
+package searchengine.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отпечатки проиндексированных страниц одного сайта. Точные копии
+ * находятся по хешу содержимого, почти-копии — по SimHash: отпечаток
+ * делится на 4 полосы по 16 бит, и при расстоянии Хэмминга не больше 3
+ * хотя бы одна полоса совпадает, поэтому сравнивать нужно только
+ * страницы из той же полосы.
+ */
+public class FingerprintIndex {
+    public static final int MAX_DISTANCE = 3;
+    public static final int MIN_TOKENS = 20;
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = Long.SIZE / BANDS;
+    private final Map<String, Integer> pagesByHash = new HashMap<>();
+    private final List<Map<Integer, List<Entry>>> bands = new ArrayList<>();
+    private final Map<Integer, Entry> entriesByPage = new HashMap<>();
+
+    public FingerprintIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            bands.add(new HashMap<>());
+        }
+    }
+
+    public synchronized Integer registerOrGetOriginal(int pageId, String contentHash, long simHash, int tokensCount) {
+        Integer originalId = contentHash == null ? null : pagesByHash.get(contentHash);
+        if (originalId != null && originalId != pageId) {
+            return originalId;
+        }
+        if (tokensCount >= MIN_TOKENS) {
+            originalId = findNearDuplicate(pageId, simHash);
+            if (originalId != null) {
+                return originalId;
+            }
+        }
+        register(pageId, contentHash, simHash);
+        return null;
+    }
+
+    public synchronized void register(int pageId, String contentHash, long simHash) {
+        unregister(pageId);
+        if (contentHash != null) {
+            pagesByHash.putIfAbsent(contentHash, pageId);
+        }
+        Entry entry = new Entry(pageId, contentHash, simHash);
+        entriesByPage.put(pageId, entry);
+        for (int band = 0; band < BANDS; band++) {
+            bands.get(band).computeIfAbsent(getBandKey(simHash, band), key -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    public synchronized void unregister(int pageId) {
+        Entry entry = entriesByPage.remove(pageId);
+        if (entry == null) {
+            return;
+        }
+        if (entry.contentHash() != null) {
+            pagesByHash.remove(entry.contentHash(), pageId);
+        }
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> candidates = bands.get(band).get(getBandKey(entry.simHash(), band));
+            if (candidates != null) {
+                candidates.remove(entry);
+            }
+        }
+    }
+
+    private Integer findNearDuplicate(int pageId, long simHash) {
+        for (int band = 0; band < BANDS; band++) {
+            List<Entry> candidates = bands.get(band).get(getBandKey(simHash, band));
+            if (candidates == null) {
+                continue;
+            }
+            for (Entry candidate : candidates) {
+                if (candidate.pageId() != pageId
+                        && ContentFingerprint.distance(candidate.simHash(), simHash) <= MAX_DISTANCE) {
+                    return candidate.pageId();
+                }
+            }
+        }
+        return null;
+    }
+
+    private int getBandKey(long simHash, int band) {
+        return (int) ((simHash >>> (band * BAND_BITS)) & 0xffffL);
+    }
+
+    private record Entry(int pageId, String contentHash, long simHash) {
+    }
+}
@@ -0,0 +1,34 @@
+package searchengine.data;
+
+import searchengine.config.HtmlParser;
+import searchengine.model.Page;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Извлечение из HTML страницы всего, что нужно обходу и индексации:
+ * декодированного текста страницы, заголовка, видимого текста тела
+ * блоками по одному на строку и абсолютных адресов ссылок.
+ */
+public interface HtmlTextExtractor {
+
+    ExtractedPage extract(byte[] body, String charset, String url) throws IOException;
+
+    ExtractedPage extract(String html, String url);
+
+    static HtmlTextExtractor of(HtmlParser htmlParser) {
+        return htmlParser == HtmlParser.STREAMING ? new StreamingTextExtractor() : new JsoupTextExtractor();
+    }
+
+    static void ensureExtracted(Page page) {
+        if (page.getBodyText() == null) {
+            ExtractedPage extractedPage = new JsoupTextExtractor().extract(page.getRawContent(), page.getPath());
+            page.setTitle(extractedPage.title());
+            page.setBodyText(extractedPage.bodyText());
+        }
+    }
+
+    record ExtractedPage(String html, String title, String bodyText, List<String> links) {
+    }
+}
@@ -0,0 +1,27 @@
+package searchengine.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.config.UserData;
+import searchengine.model.Site;
+
+/**
+ * Точка получения объектов записи поискового индекса: каждая индексация
+ * сайта или отдельной страницы работает со своим {@link LemmaDictionary}
+ * и своим {@link PostingsWriter}.
+ */
+@Component
+@RequiredArgsConstructor
+public class IndexStore {
+    private final JdbcTemplate jdbcTemplate;
+    private final UserData userData;
+
+    public LemmaDictionary openDictionary(Site site) {
+        return new LemmaDictionary(jdbcTemplate, site);
+    }
+
+    public PostingsWriter openPostingsWriter() {
+        return new PostingsWriter(jdbcTemplate, userData.getPersistence().getIndexBatchSize());
+    }
+}
@@ -0,0 +1,160 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import searchengine.config.Pipeline;
+import searchengine.model.Page;
+import searchengine.repositories.PageRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Конвейер индексации страниц, сохранённых во время обхода: пачка
+ * страниц загружается и лемматизируется в общем пуле процессора, затем
+ * леммы и индексы сохраняются в общем пуле записи в БД. Число пачек
+ * сайта в работе ограничено, остальные ждут в очереди сайта, так что
+ * общие пулы делятся между сайтами поровну.
+ */
+public class IndexingPipeline {
+    private final PagesIndexer pagesIndexer;
+    private final PageRepository pageRepository;
+    private final Executor cpuExecutor;
+    private final Executor dbExecutor;
+    private final int batchSize;
+    private final int maxActiveBatches;
+    private final Queue<Integer> waitingPageIds = new ArrayDeque<>();
+    private int activeBatches;
+    private final AtomicInteger pendingTasks = new AtomicInteger(1);
+    private final ProgressTracker progressTracker;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile boolean isCancelled;
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public IndexingPipeline(PagesIndexer pagesIndexer, PageRepository pageRepository, Pipeline pipeline,
+                            Executor cpuExecutor, Executor dbExecutor, ProgressTracker progressTracker) {
+        this.pagesIndexer = pagesIndexer;
+        this.pageRepository = pageRepository;
+        this.cpuExecutor = cpuExecutor;
+        this.dbExecutor = dbExecutor;
+        this.progressTracker = progressTracker;
+        this.batchSize = Math.max(1, pipeline.getBatchSize());
+        this.maxActiveBatches = Math.max(1, pipeline.getMaxActiveBatches());
+    }
+
+    public void submit(List<Integer> pageIds) {
+        synchronized (this) {
+            waitingPageIds.addAll(pageIds);
+        }
+        drain();
+    }
+
+    public CompletableFuture<Void> close() {
+        completeTask();
+        return completion;
+    }
+
+    public void cancel() {
+        isCancelled = true;
+        synchronized (this) {
+            waitingPageIds.clear();
+        }
+        completion.cancel(false);
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    public synchronized int getWaitingCount() {
+        return waitingPageIds.size();
+    }
+
+    private void drain() {
+        while (true) {
+            List<Integer> batch = new ArrayList<>();
+            synchronized (this) {
+                if (isCancelled || waitingPageIds.isEmpty() || activeBatches >= maxActiveBatches) {
+                    return;
+                }
+                while (batch.size() < batchSize && !waitingPageIds.isEmpty()) {
+                    batch.add(waitingPageIds.poll());
+                }
+                activeBatches++;
+            }
+            pendingTasks.incrementAndGet();
+            execute(cpuExecutor, () -> lemmatize(batch));
+        }
+    }
+
+    private void lemmatize(List<Integer> pageIds) {
+        List<PagesIndexer.PageLemmas> batchLemmas = new ArrayList<>();
+        for (Page page : pageRepository.findAllWithContentByIdIn(pageIds)) {
+            if (isCancelled) {
+                break;
+            }
+            try {
+                PagesIndexer.PageLemmas pageLemmas = pagesIndexer.lemmatize(page);
+                if (pageLemmas != null) {
+                    batchLemmas.add(pageLemmas);
+                }
+            } catch (Exception ex) {
+                logger.error("Ошибка лемматизации страницы " + page.getPath() + ": " + ex.getMessage());
+            }
+        }
+        execute(dbExecutor, () -> saveLemmas(batchLemmas));
+    }
+
+    private void saveLemmas(List<PagesIndexer.PageLemmas> batchLemmas) {
+        try {
+            for (PagesIndexer.PageLemmas pageLemmas : batchLemmas) {
+                if (isCancelled) {
+                    return;
+                }
+                try {
+                    pagesIndexer.saveLemmas(pageLemmas);
+                    progressTracker.pageIndexed();
+                } catch (Exception ex) {
+                    logger.error("Ошибка сохранения индекса страницы " + pageLemmas.path() + ": " + ex.getMessage());
+                }
+            }
+        } finally {
+            finishBatch();
+        }
+    }
+
+    private void execute(Executor executor, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    logger.error("Ошибка индексации: " + ex.getMessage());
+                    finishBatch();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            finishBatch();
+        }
+    }
+
+    private void finishBatch() {
+        synchronized (this) {
+            activeBatches--;
+        }
+        drain();
+        completeTask();
+    }
+
+    private void completeTask() {
+        if (pendingTasks.decrementAndGet() == 0) {
+            completion.complete(null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import searchengine.config.UserData;
+import searchengine.dto.indexing.SiteProgress;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.SiteRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ход индексации всех сайтов в памяти. Время статуса индексируемых
+ * сайтов записывается в таблицу site не чаще раза в заданный интервал
+ * и только если с прошлой записи что-то изменилось.
+ */
+@Component
+public class IndexingProgress {
+    private final SiteRepository siteRepository;
+    private final Map<String, ProgressTracker> trackers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> siteIds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "indexing-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public IndexingProgress(UserData userData, SiteRepository siteRepository) {
+        this.siteRepository = siteRepository;
+        long intervalSeconds = Math.max(1, userData.getPersistence().getStatusIntervalSeconds());
+        timer.scheduleWithFixedDelay(this::persistStatuses, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public ProgressTracker start(Site site) {
+        ProgressTracker tracker = new ProgressTracker(site.getUrl(), site.getName());
+        trackers.put(site.getUrl(), tracker);
+        siteIds.put(site.getUrl(), site.getId());
+        return tracker;
+    }
+
+    public SiteProgress getProgress(String url) {
+        ProgressTracker tracker = trackers.get(url);
+        return tracker == null ? null : tracker.getSnapshot();
+    }
+
+    public List<SiteProgress> getProgress() {
+        return trackers.values().stream()
+                .map(ProgressTracker::getSnapshot)
+                .sorted(Comparator.comparing(SiteProgress::getUrl))
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void persistStatuses() {
+        trackers.forEach((url, tracker) -> {
+            if (tracker.isFinished() || !tracker.hasChangedSinceLastPersist()) {
+                return;
+            }
+            try {
+                siteRepository.updateStatusTime(siteIds.get(url), new Date(), Status.INDEXING);
+            } catch (Exception ex) {
+                logger.error("Ошибка записи статуса сайта " + url + ": " + ex.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,65 @@
+package searchengine.data;
+
+import org.springframework.stereotype.Component;
+import searchengine.config.Scheduling;
+import searchengine.config.UserData;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+
+/**
+ * Общие для всех сайтов пулы потоков индексации: загрузка страниц,
+ * работа процессора (разбор и лемматизация) и запись в БД. Число
+ * одновременно индексируемых сайтов ограничено, остальные сайты ждут
+ * своей очереди, поэтому нагрузка не растёт с числом сайтов в настройках.
+ */
+@Component
+public class IndexingScheduler {
+    private final ExecutorService siteExecutor;
+    private final ExecutorService fetchExecutor;
+    private final ForkJoinPool cpuExecutor;
+    private final ExecutorService dbExecutor;
+
+    public IndexingScheduler(UserData userData) {
+        Scheduling scheduling = userData.getScheduling();
+        siteExecutor = Executors.newFixedThreadPool(Math.max(1, scheduling.getMaxConcurrentSites()),
+                Thread.ofPlatform().name("indexing-site-", 0).daemon(true).factory());
+        fetchExecutor = Executors.newFixedThreadPool(getThreads(scheduling.getFetchThreads()),
+                Thread.ofPlatform().name("indexing-fetch-", 0).daemon(true).factory());
+        cpuExecutor = new ForkJoinPool(getThreads(scheduling.getCpuThreads()), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("indexing-cpu-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+        dbExecutor = Executors.newFixedThreadPool(getThreads(scheduling.getDbThreads()),
+                Thread.ofPlatform().name("indexing-db-", 0).daemon(true).factory());
+    }
+
+    public static int getThreads(int configuredThreads) {
+        return configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public CompletableFuture<Void> submitSite(Runnable siteIndexer) {
+        return CompletableFuture.runAsync(siteIndexer, siteExecutor);
+    }
+
+    public Executor getFetchExecutor() {
+        return fetchExecutor;
+    }
+
+    public Executor getCpuExecutor() {
+        return cpuExecutor;
+    }
+
+    public Executor getDbExecutor() {
+        return dbExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        siteExecutor.shutdownNow();
+        fetchExecutor.shutdownNow();
+        cpuExecutor.shutdownNow();
+        dbExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,86 @@
+package searchengine.data;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Извлечение текста страницы через дерево Jsoup. Заголовок и видимый
+ * текст сохраняются вместе со страницей, поэтому индексация и выдача
+ * результатов поиска не разбирают HTML повторно. Текст тела хранится
+ * блоками по одному на строку: по ним же работает фильтр шаблонных
+ * блоков сайта.
+ */
+public class JsoupTextExtractor implements HtmlTextExtractor {
+    static final Set<String> SKIPPED_TAGS = Set.of("nav", "footer", "aside", "script", "style",
+            "noscript", "template", "iframe", "svg", "form");
+
+    @Override
+    public ExtractedPage extract(byte[] body, String charset, String url) throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(body), charset, url);
+        return extract(document, new String(body, document.charset()));
+    }
+
+    @Override
+    public ExtractedPage extract(String html, String url) {
+        return extract(Jsoup.parse(html, url), html);
+    }
+
+    private ExtractedPage extract(Document document, String html) {
+        String title = document.select("title").text();
+        String bodyText = extractBlocks(document.body());
+        return new ExtractedPage(html, title, bodyText,
+                document.body().select("a[href]").stream().map(a -> a.absUrl("href")).toList());
+    }
+
+    public static String extractBlocks(Element body) {
+        StringJoiner blocks = new StringJoiner("\n");
+        if (body == null) {
+            return "";
+        }
+        StringBuilder block = new StringBuilder();
+        Runnable flush = () -> {
+            String value = block.toString().trim();
+            if (!value.isEmpty()) {
+                blocks.add(value);
+            }
+            block.setLength(0);
+        };
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (node instanceof TextNode textNode) {
+                    block.append(textNode.text());
+                } else if (node instanceof Element element) {
+                    if (SKIPPED_TAGS.contains(element.normalName())) {
+                        flush.run();
+                        return FilterResult.SKIP_ENTIRELY;
+                    }
+                    if (element.isBlock() || element.normalName().equals("br")) {
+                        flush.run();
+                    }
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                if (node instanceof Element element && element.isBlock()) {
+                    flush.run();
+                }
+                return FilterResult.CONTINUE;
+            }
+        }, body);
+        flush.run();
+        return blocks.toString();
+    }
+}
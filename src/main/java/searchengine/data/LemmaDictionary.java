@@ -0,0 +1,174 @@
+package searchengine.data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import searchengine.model.Site;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Словарь лемм сайта в памяти: идентификатор леммы в БД и число страниц
+ * с ней, накопленное с последней записи. Новые леммы добавляются в
+ * таблицу lemma сразу пачкой на страницу, а счётчики частоты
+ * увеличиваются и уменьшаются без блокировок и записываются
+ * многострочными upsert-запросами, когда накопится достаточно изменений,
+ * и в конце индексации сайта. Неиспользуемыми считаются только леммы,
+ * частоту которых этот словарь уменьшал: строки с нулевой частотой,
+ * которые параллельно добавила другая индексация сайта, не удаляются.
+ */
+public class LemmaDictionary {
+    private static final int BATCH_SIZE = 500;
+    private static final int FLUSH_THRESHOLD = 20_000;
+    private final JdbcTemplate jdbcTemplate;
+    private final Site site;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entriesById = new ConcurrentHashMap<>();
+    private final Set<Integer> decrementedIds = ConcurrentHashMap.newKeySet();
+    private final LongAdder pendingUpdates = new LongAdder();
+
+    public LemmaDictionary(JdbcTemplate jdbcTemplate, Site site) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.site = site;
+    }
+
+    public Map<String, Integer> resolve(Collection<String> lemmas) {
+        Map<String, Integer> lemmaIds = new HashMap<>(lemmas.size() * 2);
+        List<String> missingLemmas = new ArrayList<>();
+        for (String lemma : lemmas) {
+            Entry entry = entries.get(lemma);
+            if (entry != null) {
+                lemmaIds.put(lemma, entry.id);
+            } else {
+                missingLemmas.add(lemma);
+            }
+        }
+        for (int from = 0; from < missingLemmas.size(); from += BATCH_SIZE) {
+            List<String> batch = missingLemmas.subList(from, Math.min(missingLemmas.size(), from + BATCH_SIZE));
+            insertMissing(batch);
+            loadIds(batch, lemmaIds);
+            for (String lemma : batch) {
+                if (!lemmaIds.containsKey(lemma)) {
+                    throw new IllegalStateException("Лемма \"" + lemma + "\" не найдена в таблице lemma после добавления");
+                }
+            }
+        }
+        return lemmaIds;
+    }
+
+    public void addPage(Collection<Integer> lemmaIds) {
+        for (Integer lemmaId : lemmaIds) {
+            Entry entry = entriesById.get(lemmaId);
+            if (entry != null) {
+                entry.pendingFrequency.incrementAndGet();
+                pendingUpdates.increment();
+            }
+        }
+    }
+
+    public void removePage(Collection<Integer> lemmaIds) {
+        List<Integer> missingIds = lemmaIds.stream().filter(id -> !entriesById.containsKey(id)).toList();
+        for (int from = 0; from < missingIds.size(); from += BATCH_SIZE) {
+            loadLemmas(missingIds.subList(from, Math.min(missingIds.size(), from + BATCH_SIZE)));
+        }
+        for (Integer lemmaId : lemmaIds) {
+            Entry entry = entriesById.get(lemmaId);
+            if (entry != null) {
+                entry.pendingFrequency.decrementAndGet();
+                pendingUpdates.increment();
+            }
+        }
+    }
+
+    public void deleteUnused() {
+        flush();
+        List<Integer> candidateIds = new ArrayList<>(decrementedIds);
+        decrementedIds.removeAll(candidateIds);
+        for (int from = 0; from < candidateIds.size(); from += BATCH_SIZE) {
+            List<Integer> batch = candidateIds.subList(from, Math.min(candidateIds.size(), from + BATCH_SIZE));
+            jdbcTemplate.update("DELETE FROM lemma WHERE frequency <= 0 AND id IN ("
+                    + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")", batch.toArray());
+        }
+        for (Integer lemmaId : candidateIds) {
+            Entry entry = entriesById.remove(lemmaId);
+            if (entry != null) {
+                entries.remove(entry.lemma, entry);
+            }
+        }
+    }
+
+    public void flushIfNeeded() {
+        if (pendingUpdates.sum() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        pendingUpdates.reset();
+        List<Object[]> rows = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            int frequency = entry.pendingFrequency.getAndSet(0);
+            if (frequency != 0) {
+                rows.add(new Object[]{entry.id, entry.lemma, frequency, site.getId()});
+            }
+            if (frequency < 0) {
+                decrementedIds.add(entry.id);
+            }
+        }
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE));
+            jdbcTemplate.update("INSERT INTO lemma (id, lemma, frequency, site_id) VALUES "
+                    + String.join(", ", Collections.nCopies(batch.size(), "(?, ?, ?, ?)"))
+                    + " ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)",
+                    batch.stream().flatMap(Arrays::stream).toArray());
+        }
+    }
+
+    private void insertMissing(List<String> lemmas) {
+        jdbcTemplate.update("INSERT IGNORE INTO lemma (lemma, frequency, site_id) VALUES "
+                        + String.join(", ", Collections.nCopies(lemmas.size(), "(?, 0, ?)")),
+                lemmas.stream().flatMap(lemma -> Stream.of(lemma, site.getId())).toArray());
+    }
+
+    private void loadIds(List<String> lemmas, Map<String, Integer> lemmaIds) {
+        List<Object> arguments = new ArrayList<>(lemmas.size() + 1);
+        arguments.add(site.getId());
+        arguments.addAll(lemmas);
+        jdbcTemplate.query("SELECT id, lemma FROM lemma WHERE site_id = ? AND lemma IN ("
+                        + String.join(", ", Collections.nCopies(lemmas.size(), "?")) + ")",
+                resultSet -> {
+                    int id = resultSet.getInt("id");
+                    String lemma = resultSet.getString("lemma");
+                    lemmaIds.put(lemma, register(id, lemma).id);
+                }, arguments.toArray());
+    }
+
+    private void loadLemmas(List<Integer> lemmaIds) {
+        jdbcTemplate.query("SELECT id, lemma FROM lemma WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(lemmaIds.size(), "?")) + ")",
+                resultSet -> {
+                    int id = resultSet.getInt("id");
+                    String lemma = resultSet.getString("lemma");
+                    entries.putIfAbsent(lemma, entriesById.computeIfAbsent(id, key -> new Entry(key, lemma)));
+                }, lemmaIds.toArray());
+    }
+
+    private Entry register(int id, String lemma) {
+        Entry entry = entries.computeIfAbsent(lemma, key -> new Entry(id, key));
+        entriesById.putIfAbsent(entry.id, entry);
+        return entry;
+    }
+
+    private static class Entry {
+        private final int id;
+        private final String lemma;
+        private final AtomicInteger pendingFrequency = new AtomicInteger();
+
+        private Entry(int id, String lemma) {
+            this.id = id;
+            this.lemma = lemma;
+        }
+    }
+}
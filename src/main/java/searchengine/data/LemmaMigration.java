@@ -0,0 +1,78 @@
+package searchengine.data;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Однократное приведение таблицы lemma к уникальному ключу (лемма, сайт)
+ * с бинарным сравнением строк. Без него «все» и «всё» считаются одной
+ * леммой, а созданные ранее дубликаты не дают добавить ключ. Дубликаты
+ * сливаются в строку с меньшим id: индексы переносятся на неё, частота
+ * пересчитывается по числу страниц.
+ */
+@Component
+@RequiredArgsConstructor
+@DependsOn("entityManagerFactory")
+public class LemmaMigration {
+    private static final String COLLATION = "utf8mb4_bin";
+    private static final String UNIQUE_KEY = "uk_lemma_site";
+    private final JdbcTemplate jdbcTemplate;
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    @PostConstruct
+    public void migrate() {
+        if (COLLATION.equals(getCollation()) && hasUniqueKey()) {
+            return;
+        }
+        logger.info("Приведение таблицы лемм к уникальному ключу начато");
+        jdbcTemplate.execute("DROP TEMPORARY TABLE IF EXISTS lemma_duplicates");
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE lemma_duplicates (PRIMARY KEY (duplicate_id), KEY (keep_id)) AS "
+                + "SELECT l.id AS duplicate_id, k.keep_id FROM lemma l JOIN ("
+                + "SELECT MIN(id) AS keep_id, CAST(lemma AS BINARY) AS lemma_key, site_id FROM lemma "
+                + "GROUP BY CAST(lemma AS BINARY), site_id HAVING COUNT(*) > 1) k "
+                + "ON CAST(l.lemma AS BINARY) = k.lemma_key AND l.site_id = k.site_id WHERE l.id <> k.keep_id");
+        Integer duplicatesCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lemma_duplicates", Integer.class);
+        if (duplicatesCount != null && duplicatesCount > 0) {
+            mergeDuplicates();
+        }
+        jdbcTemplate.execute("DROP TEMPORARY TABLE lemma_duplicates");
+        if (!COLLATION.equals(getCollation())) {
+            jdbcTemplate.execute("ALTER TABLE lemma MODIFY lemma VARCHAR(255) CHARACTER SET utf8mb4 COLLATE "
+                    + COLLATION + " NOT NULL");
+        }
+        if (!hasUniqueKey()) {
+            jdbcTemplate.execute("ALTER TABLE lemma ADD CONSTRAINT " + UNIQUE_KEY + " UNIQUE (lemma, site_id)");
+        }
+        logger.info("Приведение таблицы лемм завершено, слито дубликатов: " + duplicatesCount);
+    }
+
+    private void mergeDuplicates() {
+        jdbcTemplate.update("UPDATE `index` i JOIN lemma_duplicates d ON i.lemma_id = d.duplicate_id "
+                + "SET i.lemma_id = d.keep_id");
+        jdbcTemplate.update("DELETE i1 FROM `index` i1 JOIN `index` i2 ON i1.page_id = i2.page_id "
+                + "AND i1.lemma_id = i2.lemma_id AND i1.id > i2.id "
+                + "WHERE i1.lemma_id IN (SELECT keep_id FROM lemma_duplicates)");
+        jdbcTemplate.update("UPDATE lemma l JOIN (SELECT lemma_id, COUNT(DISTINCT page_id) AS pages_count "
+                + "FROM `index` WHERE lemma_id IN (SELECT keep_id FROM lemma_duplicates) GROUP BY lemma_id) f "
+                + "ON l.id = f.lemma_id SET l.frequency = f.pages_count");
+        jdbcTemplate.update("DELETE l FROM lemma l JOIN lemma_duplicates d ON l.id = d.duplicate_id");
+    }
+
+    private String getCollation() {
+        return jdbcTemplate.query("SELECT collation_name FROM information_schema.columns "
+                        + "WHERE table_schema = DATABASE() AND table_name = 'lemma' AND column_name = 'lemma'",
+                resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+
+    private boolean hasUniqueKey() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = 'lemma' AND index_name = ?", Integer.class, UNIQUE_KEY);
+        return count != null && count > 0;
+    }
+}
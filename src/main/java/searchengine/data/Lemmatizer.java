@@ -3,9 +3,6 @@ package searchengine.data;
 import org.apache.lucene.morphology.LuceneMorphology;
 import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Node;
 
 import java.io.IOException;
 import java.util.*;
@@ -32,35 +29,13 @@ public class Lemmatizer {
         }
     }
 
-    public ArrayList<String> getAllElements(List<Node> nodes) {
-        ArrayList<String> textElemList = new ArrayList<>();
-        for (Node node : nodes) {
-            textElemList.addAll(getNodeElements(node));
-        }
-        return textElemList;
-    }
-
-    private ArrayList<String> getNodeElements(Node node) {
-        ArrayList<String> textElemList = new ArrayList<>();
-        if (node.childNodeSize() == 0) {
-            if (node.toString().trim().equals("")) {
-                return new ArrayList<>();
-            }
-            textElemList.add(node.toString().trim());
-        } else {
-            List<Node> list = node.childNodes();
-            textElemList.addAll(getAllElements(list));
-        }
-        return textElemList;
-    }
-
-    public ArrayList<String> findMatches(String html, ArrayList<String> searchedLemmas) {
+    public ArrayList<String> findMatches(String text, ArrayList<String> searchedLemmas) {
         HashSet<String> findSet;
         ArrayList<String> resultList = new ArrayList<>();
-        Document document = Jsoup.parse(html);
-        List<Node> childNodes = document.childNodes();
-        ArrayList<String> list = getAllElements(childNodes);
-        for (String elementText : list) {
+        for (String elementText : text.split("\n")) {
+            if (elementText.isBlank()) {
+                continue;
+            }
             findSet = getNormalFormWords(elementText, searchedLemmas);
             if (findSet.size() == 0) {
                 continue;
@@ -0,0 +1,58 @@
+package searchengine.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Поток, который бросает {@link IOException}, как только из него прочитано
+ * больше заданного числа байтов. Защищает от слишком больших ответов
+ * сервера и от сжатых данных, которые распаковываются в гигабайты.
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final String errorMessage;
+    private long remaining;
+
+    LimitedInputStream(InputStream inputStream, long maxBytes, String errorMessage) {
+        super(inputStream);
+        this.remaining = maxBytes;
+        this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value != -1) {
+            consume(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+            consume(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = super.skip(count);
+        consume(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void consume(long count) throws IOException {
+        remaining -= count;
+        if (remaining < 0) {
+            throw new IOException(errorMessage);
+        }
+    }
+}
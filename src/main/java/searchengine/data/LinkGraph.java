@@ -0,0 +1,110 @@
+package searchengine.data;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Граф ссылок сайта, собираемый во время обхода. Адреса хранятся
+ * отпечатками и сразу переводятся в целые номера вершин, исходящие
+ * ссылки страницы — отсортированным массивом номеров. После сохранения
+ * страниц номера вершин заменяются идентификаторами страниц.
+ */
+public class LinkGraph {
+    private final Map<Long, Integer> nodeIds = new ConcurrentHashMap<>();
+    private final Map<Integer, int[]> outlinks = new ConcurrentHashMap<>();
+    private final Map<Long, Long> redirects = new ConcurrentHashMap<>();
+    private final AtomicInteger nodesCount = new AtomicInteger();
+
+    public void addLinks(String sourceUrl, Collection<String> targetUrls) {
+        int[] targets = targetUrls.stream().mapToInt(this::getNodeId).sorted().distinct().toArray();
+        outlinks.put(getNodeId(sourceUrl), targets);
+    }
+
+    public void addRedirect(String url, String targetUrl) {
+        redirects.put(CrawlFrontier.fingerprint(url), CrawlFrontier.fingerprint(targetUrl));
+    }
+
+    public int getLinksCount() {
+        return outlinks.values().stream().mapToInt(targets -> targets.length).sum();
+    }
+
+    public Map<Integer, int[]> resolve(Map<Long, Integer> pageIdsByFingerprint) {
+        int[] pageIds = new int[nodesCount.get()];
+        Arrays.fill(pageIds, -1);
+        nodeIds.forEach((fingerprint, nodeId) -> {
+            Integer pageId = pageIdsByFingerprint.get(followRedirects(fingerprint));
+            if (nodeId < pageIds.length && pageId != null) {
+                pageIds[nodeId] = pageId;
+            }
+        });
+        Map<Integer, int[]> pageLinks = new HashMap<>();
+        outlinks.forEach((sourceNode, targetNodes) -> {
+            int sourcePage = sourceNode < pageIds.length ? pageIds[sourceNode] : -1;
+            if (sourcePage < 0) {
+                return;
+            }
+            int[] targets = Arrays.stream(targetNodes)
+                    .filter(node -> node < pageIds.length)
+                    .map(node -> pageIds[node])
+                    .filter(pageId -> pageId >= 0 && pageId != sourcePage)
+                    .toArray();
+            pageLinks.merge(sourcePage, targets, LinkGraph::union);
+        });
+        pageLinks.replaceAll((pageId, targets) -> Arrays.stream(targets).sorted().distinct().toArray());
+        return pageLinks;
+    }
+
+    public static byte[] encode(int[] sortedTargets) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sortedTargets.length * 2);
+        int previous = 0;
+        for (int target : sortedTargets) {
+            int delta = target - previous;
+            previous = target;
+            while ((delta & ~0x7F) != 0) {
+                out.write((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.write(delta);
+        }
+        return out.toByteArray();
+    }
+
+    public static int[] decode(byte[] encodedTargets) {
+        int[] targets = new int[encodedTargets.length];
+        int count = 0;
+        int previous = 0;
+        int delta = 0;
+        int shift = 0;
+        for (byte b : encodedTargets) {
+            delta |= (b & 0x7F) << shift;
+            if ((b & 0x80) != 0) {
+                shift += 7;
+                continue;
+            }
+            previous += delta;
+            targets[count++] = previous;
+            delta = 0;
+            shift = 0;
+        }
+        return Arrays.copyOf(targets, count);
+    }
+
+    private int getNodeId(String url) {
+        return nodeIds.computeIfAbsent(CrawlFrontier.fingerprint(url), fingerprint -> nodesCount.getAndIncrement());
+    }
+
+    private long followRedirects(long fingerprint) {
+        for (int hops = 0; hops < 5 && redirects.containsKey(fingerprint); hops++) {
+            fingerprint = redirects.get(fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package searchengine.data;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.PageLinks;
+import searchengine.model.Site;
+import searchengine.repositories.PageLinksRepository;
+
+import javax.transaction.Transactional;
+import java.util.*;
+
+/**
+ * Хранение графа ссылок сайта и статической важности страниц. Ссылки
+ * страницы лежат одной строкой: разности отсортированных идентификаторов
+ * целевых страниц в формате varint. Важность пересчитывается по всему
+ * сохранённому графу сайта и пишется в page.page_rank пакетами;
+ * значение нормировано так, что в среднем по сайту оно равно единице.
+ */
+@Component
+@RequiredArgsConstructor
+public class LinkGraphStore {
+    private static final int BATCH_SIZE = 1000;
+    private final PageLinksRepository pageLinksRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public Map<Integer, int[]> loadLinks(Site site) {
+        Map<Integer, int[]> links = new HashMap<>();
+        for (PageLinks pageLinks : pageLinksRepository.findAllBySiteId(site.getId())) {
+            links.put(pageLinks.getPageId(), LinkGraph.decode(pageLinks.getTargets()));
+        }
+        return links;
+    }
+
+    @Transactional
+    public void replaceLinks(Site site, Map<Integer, int[]> links) {
+        pageLinksRepository.deleteAllBySiteId(site.getId());
+        List<Object[]> rows = new ArrayList<>(links.size());
+        links.forEach((pageId, targets) -> rows.add(new Object[]{pageId, site.getId(), LinkGraph.encode(targets)}));
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("INSERT INTO page_links (page_id, site_id, targets) VALUES (?, ?, ?)",
+                    rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+
+    public void deleteLinks(Site site) {
+        pageLinksRepository.deleteAllBySiteId(site.getId());
+    }
+
+    public void updatePageRanks(int[] pageIds, Map<Integer, int[]> links) {
+        Map<Integer, Integer> nodes = new HashMap<>(pageIds.length * 2);
+        for (int node = 0; node < pageIds.length; node++) {
+            nodes.put(pageIds[node], node);
+        }
+        int[] offsets = new int[pageIds.length + 1];
+        int[][] adjacency = new int[pageIds.length][];
+        for (int node = 0; node < pageIds.length; node++) {
+            int[] targets = links.getOrDefault(pageIds[node], new int[0]);
+            adjacency[node] = Arrays.stream(targets).filter(nodes::containsKey).map(nodes::get).toArray();
+            offsets[node + 1] = offsets[node] + adjacency[node].length;
+        }
+        int[] targets = new int[offsets[pageIds.length]];
+        for (int node = 0; node < pageIds.length; node++) {
+            System.arraycopy(adjacency[node], 0, targets, offsets[node], adjacency[node].length);
+        }
+        double[] ranks = PageRank.compute(offsets, targets);
+        List<Object[]> rows = new ArrayList<>(pageIds.length);
+        for (int node = 0; node < pageIds.length; node++) {
+            rows.add(new Object[]{(float) (ranks[node] * pageIds.length), pageIds[node]});
+        }
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE page SET page_rank = ? WHERE id = ?",
+                    rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+}
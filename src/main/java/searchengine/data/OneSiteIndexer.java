@@ -3,18 +3,25 @@ package searchengine.data;
 import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import searchengine.config.CrawlBudget;
+import searchengine.config.CrawlMode;
+import searchengine.config.Persistence;
 import searchengine.config.UserData;
-import searchengine.model.Field;
-import searchengine.model.Page;
-import searchengine.model.Site;
-import searchengine.model.Status;
+import searchengine.dto.indexing.IndexingMode;
+import searchengine.model.*;
 import searchengine.repositories.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 public class OneSiteIndexer extends Thread {
+    private static final String STOPPED_MESSAGE = "Индексация остановлена пользователем";
     private final FieldRepository fieldRepository;
     private final IndexRepository indexRepository;
     private final LemmaRepository lemmaRepository;
@@ -26,25 +33,59 @@ public class OneSiteIndexer extends Thread {
     private String ROOT_URL_NAME;
     @Setter
     private UserData userData;
+    @Setter
+    private CrawlScheduler crawlScheduler;
+    @Setter
+    private PageFetcher pageFetcher;
+    @Setter
+    private RobotsTxtCache robotsTxtCache;
+    @Setter
+    private IndexingMode mode = IndexingMode.FULL;
+    @Setter
+    private CrawlBudget budget = new CrawlBudget();
+    @Setter
+    private LinkGraphStore linkGraphStore;
+    @Setter
+    private IndexingScheduler indexingScheduler;
+    @Setter
+    private IndexStore indexStore;
+    @Setter
+    private IndexingProgress indexingProgress;
+    private Map<String, Page> knownPages = new HashMap<>();
+    private final HashSet<String> savedPaths = new HashSet<>();
+    private int changedPagesCount;
+    private List<Integer> savedPageIds = new ArrayList<>();
     private PagesIndexer recursiveIndexing;
+    private IndexingPipeline pipeline;
+    private LemmaDictionary lemmaDictionary;
+    private PostingsWriter postingsWriter;
+    private FingerprintIndex fingerprintIndex;
+    private ProgressTracker progressTracker;
+    private final List<Integer> heldPageIds = new ArrayList<>();
+    private boolean isPipelineOpen;
     private SiteMapCreator siteMapCreator;
-    private ForkJoinPool forkJoinPool;
-    private volatile AtomicBoolean isInterrupted;
+    private PageBatchWriter pageWriter;
+    private CrawlFrontier frontier;
+    private boolean isFrontierRestored;
+    private RobotsRules robotsRules;
+    private Executor fetchExecutor;
+    private UrlNormalizer urlNormalizer;
+    private RevisitPolicy revisitPolicy;
+    private BoilerplateFilter boilerplateFilter;
+    private LinkGraph linkGraph;
+    private CrawlCheckpoint checkpoint;
+    private CompletableFuture<Void> crawlFuture;
+    private final CancellationToken cancellationToken;
     private final Logger logger = LogManager.getLogger(getClass());
 
     public OneSiteIndexer(FieldRepository fieldRepository, IndexRepository indexRepository, LemmaRepository lemmaRepository,
-                          PageRepository pageRepository, SiteRepository siteRepository, AtomicBoolean isInterrupted) {
+                          PageRepository pageRepository, SiteRepository siteRepository, CancellationToken cancellationToken) {
         this.fieldRepository = fieldRepository;
         this.indexRepository = indexRepository;
         this.lemmaRepository = lemmaRepository;
         this.pageRepository = pageRepository;
         this.siteRepository = siteRepository;
-        this.isInterrupted = isInterrupted;
-    }
-
-    public synchronized void setIsInterrupted(boolean isInterrupted) {
-        this.isInterrupted.set(isInterrupted);
-        interruptChecking();
+        this.cancellationToken = cancellationToken;
     }
 
     @Override
@@ -56,31 +97,18 @@ public class OneSiteIndexer extends Thread {
         }
     }
 
-    private void interruptChecking() {
-        if (isInterrupted.get()) {
-            currentThread().interrupt();
-            String infoText = "Индексация остановлена пользователем";
-            logger.info(infoText);
-        }
-    }
-
     public void fullIndexing() {
         try {
-            if (isInterrupted.get()) {
-                siteMapCreator.setIsInterrupted(true);
-                return;
-            }
-            logger.info(getPrefixForLogger() + "обход страниц сайта начат!");
-            getAndSavePages();
-            logger.info(getPrefixForLogger() + "информация добавлена в базу данных!");
-            if (isInterrupted.get()) {
+            if (cancellationToken.isCancelled()) {
+                saveSiteChanges(siteRepository.findByUrl(ROOT_URL), STOPPED_MESSAGE);
                 return;
             }
             indexTablesInitialization();
-            if (isInterrupted.get()) {
-                recursiveIndexing.setIsInterrupted(true);
+            logger.info(getPrefixForLogger() + "обход страниц сайта начат!");
+            if (!getAndSavePages()) {
                 return;
             }
+            logger.info(getPrefixForLogger() + "информация добавлена в базу данных!");
             indexing();
         } catch (Exception exception) {
             logger.error(getPrefixForLogger() + "Ошибка: " + exception.getMessage());
@@ -93,77 +121,313 @@ public class OneSiteIndexer extends Thread {
         return "Сайт \"" + ROOT_URL_NAME + "\": ";
     }
 
-    private void getAndSavePages() {
+    private boolean getAndSavePages() {
         Site site = siteRepository.findByUrl(ROOT_URL);
+        urlNormalizer = new UrlNormalizer(ROOT_URL, userData.getUrlFilter());
+        revisitPolicy = new RevisitPolicy(userData.getRevisit());
+        knownPages = getKnownPages(site);
+        progressTracker = indexingProgress.start(site);
+        Persistence persistence = userData.getPersistence();
+        pageWriter = new PageBatchWriter(pageRepository, persistence.getPageBatchSize(),
+                persistence.getMaxInFlightMegabytes() * 1024L * 1024L, this::prepareBatch,
+                indexingScheduler.getDbExecutor());
+        checkpoint = new CrawlCheckpoint(Path.of(userData.getCheckpoint().getDirectory()), ROOT_URL);
+        frontier = createFrontier();
+        pageWriter.setFlushListener(frontier::markDone);
+        progressTracker.setCrawlQueue(frontier::pendingCount);
         Page root = new Page(ROOT_URL, site);
-        siteMapCreator = new SiteMapCreator(indexRepository, lemmaRepository, pageRepository, siteRepository);
+        siteMapCreator = new SiteMapCreator(pageRepository);
         siteMapCreator.setPage(root);
         siteMapCreator.setSite(site);
         siteMapCreator.setUserData(userData);
-        forkJoinPool = new ForkJoinPool();
-        forkJoinPool.submit(siteMapCreator);
-        if (interruptionWaiting(site, false)) {
-            return;
-        }
-        HashSet<Page> pagesHashSet;
+        siteMapCreator.setFrontier(frontier);
+        siteMapCreator.setCrawlScheduler(crawlScheduler);
+        siteMapCreator.setPageFetcher(pageFetcher);
+        siteMapCreator.setKnownPages(knownPages);
+        siteMapCreator.setPageWriter(pageWriter);
+        siteMapCreator.setUrlNormalizer(urlNormalizer);
+        boilerplateFilter = new BoilerplateFilter();
+        siteMapCreator.setBoilerplateFilter(boilerplateFilter);
+        linkGraph = new LinkGraph();
+        siteMapCreator.setLinkGraph(linkGraph);
+        siteMapCreator.setCancellationToken(cancellationToken);
+        siteMapCreator.setProgressTracker(progressTracker);
+        fetchExecutor = userData.getCrawlMode() == CrawlMode.VIRTUAL_THREADS
+                ? crawlScheduler.getVirtualFetchExecutor() : indexingScheduler.getFetchExecutor();
+        robotsRules = getRobotsRules();
+        siteMapCreator.setRobotsRules(robotsRules);
+        siteMapCreator.setSitemapUrls(getSitemapUrls(robotsRules));
+        siteMapCreator.setMaxDuration(Duration.ofMinutes(budget.getMaxDurationMinutes()));
+        startPipeline(site);
+        pageWriter.setSavedPagesListener(this::onPagesSaved);
+        cancellationToken.onCancel(() -> {
+            pageWriter.abort();
+            pipeline.cancel();
+        });
+        checkpoint.start(frontier::snapshot, Duration.ofSeconds(userData.getCheckpoint().getIntervalSeconds()));
+        crawlFuture = siteMapCreator.crawl(fetchExecutor, indexingScheduler.getCpuExecutor());
         try {
-            pagesHashSet = siteMapCreator.get();
+            crawlFuture.get();
+            logger.info(getPrefixForLogger() + "обход страниц сайта закончен!");
+            logger.info(getPrefixForLogger() + "идёт сохранение оставшихся страниц в базу данных!");
+            pageWriter.close().get();
         } catch (Exception ex) {
+            pageWriter.abort();
+            pipeline.cancel();
+            saveCheckpoint();
             executionMessage(ex, site);
+            return false;
+        }
+        finishCheckpoint();
+        progressTracker.setStage("INDEXING");
+        savedPageIds = pageWriter.getSavedPageIds();
+        if (mode != IndexingMode.FULL) {
+            logger.info(getPrefixForLogger() + "изменённых страниц: " + changedPagesCount
+                    + ", новых страниц: " + (savedPageIds.size() - changedPagesCount));
+        }
+        updateLinkGraph(site);
+        return true;
+    }
+
+    private void startPipeline(Site site) {
+        recursiveIndexing = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
+                cancellationToken);
+        recursiveIndexing.setSite(site);
+        fingerprintIndex = createFingerprintIndex(site);
+        recursiveIndexing.setFingerprintIndex(fingerprintIndex);
+        lemmaDictionary = indexStore.openDictionary(site);
+        recursiveIndexing.setLemmaDictionary(lemmaDictionary);
+        postingsWriter = indexStore.openPostingsWriter();
+        recursiveIndexing.setPostingsWriter(postingsWriter);
+        recursiveIndexing.setDeltaMode(mode != IndexingMode.FULL);
+        pipeline = new IndexingPipeline(recursiveIndexing, pageRepository, userData.getPipeline(),
+                indexingScheduler.getCpuExecutor(), indexingScheduler.getDbExecutor(), progressTracker);
+        progressTracker.setIndexQueue(pipeline::getWaitingCount);
+        if (mode != IndexingMode.FULL && site.getTemplateBlocks() != null) {
+            recursiveIndexing.setBoilerplateFilter(BoilerplateFilter.fromTemplateBlocks(site.getTemplateBlocks()));
+            isPipelineOpen = true;
+        }
+    }
+
+    private synchronized void onPagesSaved(List<Integer> pageIds) {
+        progressTracker.pagesSaved(pageIds.size());
+        if (!isPipelineOpen && boilerplateFilter.isSampleComplete()) {
+            openPipeline(siteRepository.findByUrl(ROOT_URL));
+        }
+        if (isPipelineOpen) {
+            pipeline.submit(pageIds);
+        } else {
+            heldPageIds.addAll(pageIds);
+        }
+    }
+
+    private synchronized void openPipeline(Site site) {
+        if (isPipelineOpen) {
             return;
         }
-        pagesHashSet = modifyPathsInPages(pagesHashSet);
-        ArrayList<Page> pagesList = new ArrayList<>(pagesHashSet);
+        recursiveIndexing.setBoilerplateFilter(createBoilerplateFilter(site));
+        isPipelineOpen = true;
+        logger.info(getPrefixForLogger() + "идёт индексация страниц!");
+        pipeline.submit(heldPageIds);
+        heldPageIds.clear();
+    }
+
+    private void updateLinkGraph(Site site) {
+        try {
+            Map<Long, Integer> pageIdsByFingerprint = new HashMap<>();
+            for (Object[] idAndPath : pageRepository.findIdsAndPathsBySite(site)) {
+                String url = urlNormalizer.normalize(urlNormalizer.toUrl((String) idAndPath[1]));
+                if (url != null) {
+                    pageIdsByFingerprint.put(CrawlFrontier.fingerprint(url), (Integer) idAndPath[0]);
+                }
+            }
+            Map<Integer, int[]> links = linkGraph.resolve(pageIdsByFingerprint);
+            Set<Integer> pageIds = new HashSet<>(pageIdsByFingerprint.values());
+            if (mode != IndexingMode.FULL) {
+                linkGraphStore.loadLinks(site).forEach((pageId, targets) -> {
+                    if (pageIds.contains(pageId)) {
+                        links.putIfAbsent(pageId, targets);
+                    }
+                });
+            }
+            linkGraphStore.replaceLinks(site, links);
+            linkGraphStore.updatePageRanks(pageIds.stream().mapToInt(Integer::intValue).sorted().toArray(), links);
+            logger.info(getPrefixForLogger() + "граф ссылок сохранён: страниц " + pageIds.size()
+                    + ", ссылок " + links.values().stream().mapToInt(targets -> targets.length).sum());
+        } catch (Exception ex) {
+            logger.error(getPrefixForLogger() + "ошибка расчёта важности страниц: " + ex.getMessage());
+        }
+    }
+
+    private List<Page> prepareBatch(List<Page> batch) {
+        List<Page> pagesList = modifyPathsInPages(batch);
         Collections.sort(pagesList);
-        logger.info(getPrefixForLogger() + "обход страниц сайта закончен!");
-        logger.info(getPrefixForLogger() + "идёт добавление информации в базу данных!");
-        pageRepository.saveAll(pagesList);
+        matchKnownPages(pagesList);
+        return pagesList;
     }
 
-    private void executionMessage(Exception ex, Site site) {
-        String errorText = (ex.getClass().equals(InterruptedException.class))
-                ? "Обход страниц прерван пользователем"
-                : "Ошибка при обходе страниц сайта";
-        saveSiteChanges(site, errorText);
-        logger.error(getPrefixForLogger() + errorText + ": " + ex.getMessage());
+    private CrawlFrontier createFrontier() {
+        CrawlFrontier frontier = new CrawlFrontier(userData.getCrawlPriority(), budget.getMaxDepth(), budget.getMaxPages());
+        if (mode != IndexingMode.RESUME) {
+            return frontier;
+        }
+        CrawlFrontier.Snapshot snapshot = checkpoint.load();
+        if (snapshot == null) {
+            logger.info(getPrefixForLogger() + "контрольная точка не найдена, обход начинается с главной страницы");
+            return frontier;
+        }
+        frontier.restore(snapshot);
+        isFrontierRestored = true;
+        logger.info(getPrefixForLogger() + "обход продолжается с контрольной точки: найдено адресов "
+                + frontier.visitedCount() + ", в очереди " + frontier.pendingCount());
+        return frontier;
     }
 
-    private boolean interruptionWaiting(Site site, boolean indexing) {
-        if (indexing) {
-            return interruptWaitingByIndexing(site);
-        } else {
-            return interruptWaitingBySiteMapCreation(site);
+    private void finishCheckpoint() {
+        if (frontier.isPageLimitReached()) {
+            logger.info(getPrefixForLogger() + "достигнут лимит числа страниц: " + budget.getMaxPages());
         }
+        saveCheckpoint();
     }
 
-    private boolean interruptWaitingByIndexing(Site site) {
-        while (!recursiveIndexing.isDone()) {
-            if (Thread.currentThread().isInterrupted()) {
-                recursiveIndexing.setIsInterrupted(true);
-                forkJoinPool.shutdownNow();
-                String warnText = "Индексация остановлена пользователем";
-                saveSiteChanges(site, warnText);
-                logger.info(getPrefixForLogger() + warnText);
-                Thread.currentThread().interrupt();
-                return true;
+    private void deleteCheckpoint() {
+        if (frontier.pendingCount() == 0) {
+            checkpoint.delete();
+        }
+    }
+
+    private void saveCheckpoint() {
+        checkpoint.stop();
+        checkpoint.save(frontier.snapshot());
+        logger.info(getPrefixForLogger() + "контрольная точка обхода сохранена");
+    }
+
+    private RobotsRules getRobotsRules() {
+        if (!userData.getSeeding().isUseRobotsTxt()) {
+            return RobotsRules.allowAll();
+        }
+        CompletableFuture<RobotsRules> rules = new CompletableFuture<>();
+        crawlScheduler.submit(ROOT_URL, () -> {
+            try {
+                rules.complete(robotsTxtCache.getRules(ROOT_URL));
+            } catch (Exception ex) {
+                rules.complete(RobotsRules.allowAll());
+            } finally {
+                crawlScheduler.release(ROOT_URL);
+            }
+        }, fetchExecutor, () -> rules.complete(RobotsRules.allowAll()));
+        RobotsRules robotsRules = rules.join();
+        crawlScheduler.setMinInterval(ROOT_URL, robotsRules.getCrawlDelay());
+        return robotsRules;
+    }
+
+    private List<String> getSitemapUrls(RobotsRules robotsRules) {
+        if (!userData.getSeeding().isUseSitemaps()) {
+            return List.of();
+        }
+        if (!robotsRules.getSitemaps().isEmpty()) {
+            return robotsRules.getSitemaps();
+        }
+        return List.of(urlNormalizer.getOrigin() + "/sitemap.xml");
+    }
+
+    private Map<String, Page> getKnownPages(Site site) {
+        Map<String, Page> knownPages = new HashMap<>();
+        if (mode != IndexingMode.FULL) {
+            for (Page page : pageRepository.findBySitePage(site)) {
+                String url = urlNormalizer.normalize(urlNormalizer.toUrl(page.getPath()));
+                if (url != null) {
+                    knownPages.put(url, page);
+                }
+            }
+        }
+        return knownPages;
+    }
+
+    private void matchKnownPages(List<Page> pages) {
+        for (Page page : pages) {
+            Page knownPage = knownPages.get(urlNormalizer.toUrl(page.getPath()));
+            if (knownPage != null) {
+                page.setId(knownPage.getId());
+                fingerprintIndex.unregister(knownPage.getId());
+                revisitPolicy.recordChange(page, knownPage);
+                changedPagesCount++;
             }
         }
-        return false;
     }
 
-    private boolean interruptWaitingBySiteMapCreation(Site site) {
-        while (!siteMapCreator.isDone()) {
-            if (Thread.currentThread().isInterrupted()) {
-                String warnText = "Обход страниц сайта прерван пользователем";
-                saveSiteChanges(site, warnText);
-                logger.info(getPrefixForLogger() + warnText);
-                siteMapCreator.setIsInterrupted(true);
-                forkJoinPool.shutdownNow();
+    private void retractRemovedPages() {
+        if (knownPages.isEmpty() || frontier.pendingCount() > 0 || frontier.isPageLimitReached()) {
+            return;
+        }
+        boolean isLinkGraphComplete = !isFrontierRestored && frontier.getTooDeepCount() == 0
+                && siteMapCreator.getDisallowedLinksCount() == 0;
+        List<Integer> removedPageIds = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> goneChecks = new ArrayList<>();
+        for (Map.Entry<String, Page> entry : knownPages.entrySet()) {
+            String url = entry.getKey();
+            if (frontier.isVisited(url)) {
+                continue;
+            }
+            if (isLinkGraphComplete) {
+                removedPageIds.add(entry.getValue().getId());
+            } else if (robotsRules.isAllowed(url)) {
+                goneChecks.add(checkGone(url, entry.getValue().getId(), removedPageIds));
+            }
+        }
+        try {
+            CompletableFuture.allOf(goneChecks.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException | ExecutionException ex) {
+            if (ex instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
-                return true;
             }
+            return;
+        }
+        if (removedPageIds.isEmpty() || cancellationToken.isCancelled()) {
+            return;
+        }
+        recursiveIndexing.retractPages(removedPageIds);
+        removedPageIds.forEach(fingerprintIndex::unregister);
+        pageRepository.deleteAllById(removedPageIds);
+        logger.info(getPrefixForLogger() + "удалено страниц, которых больше нет на сайте: " + removedPageIds.size());
+    }
+
+    private CompletableFuture<Void> checkGone(String url, int pageId, List<Integer> removedPageIds) {
+        CompletableFuture<Void> check = new CompletableFuture<>();
+        crawlScheduler.submit(url, () -> {
+            try {
+                if (!cancellationToken.isCancelled() && isGone(url)) {
+                    removedPageIds.add(pageId);
+                }
+            } finally {
+                crawlScheduler.release(url);
+                check.complete(null);
+            }
+        }, fetchExecutor, () -> check.complete(null));
+        return check;
+    }
+
+    private boolean isGone(String url) {
+        try (FetchStream response = pageFetcher.fetchStream(url)) {
+            return response.statusCode() == 404 || response.statusCode() == 410;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private void executionMessage(Exception ex, Site site) {
+        if (ex instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (cancellationToken.isCancelled() || ex instanceof InterruptedException) {
+            String warnText = "Обход страниц сайта прерван пользователем";
+            saveSiteChanges(site, warnText);
+            logger.info(getPrefixForLogger() + warnText);
+            return;
         }
-        return false;
+        String errorText = "Ошибка при обходе страниц сайта";
+        saveSiteChanges(site, errorText);
+        logger.error(getPrefixForLogger() + errorText + ": " + ex.getMessage());
     }
 
     private void indexTablesInitialization() {
@@ -178,53 +442,88 @@ public class OneSiteIndexer extends Thread {
 
     private void indexing() {
         Site site = siteRepository.findByUrl(ROOT_URL);
-        logger.info(getPrefixForLogger() + "идёт индексация страниц!");
-        List<Page> pages = pageRepository.findBySitePage(site);
-        recursiveIndexing = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                new AtomicBoolean(false));
-        recursiveIndexing.setPages(pages);
-        recursiveIndexing.setSite(site);
-        forkJoinPool.shutdownNow();
-        forkJoinPool = new ForkJoinPool();
-        forkJoinPool.submit(recursiveIndexing);
-        if (interruptionWaiting(site, true)) {
+        openPipeline(site);
+        if (mode == IndexingMode.RESUME) {
+            List<Integer> notIndexedPageIds = new ArrayList<>(pageRepository.findNotIndexedPageIds(site));
+            notIndexedPageIds.removeAll(new HashSet<>(savedPageIds));
+            pipeline.submit(notIndexedPageIds);
+        }
+        try {
+            pipeline.close().get();
+        } catch (InterruptedException | ExecutionException | CancellationException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            pipeline.cancel();
+            postingsWriter.flush();
+            lemmaDictionary.flush();
+            saveSiteChanges(site, STOPPED_MESSAGE);
+            logger.info(getPrefixForLogger() + STOPPED_MESSAGE);
             return;
         }
-        logger.info(getPrefixForLogger() + "индексация страниц завершена!");
+        retractRemovedPages();
+        postingsWriter.flush();
+        lemmaDictionary.deleteUnused();
+        deleteCheckpoint();
+        logger.info(getPrefixForLogger() + "индексация страниц завершена, проиндексировано страниц: "
+                + progressTracker.getPagesIndexed());
         saveSiteChanges(site, Status.INDEXED);
     }
 
+    private BoilerplateFilter createBoilerplateFilter(Site site) {
+        if (boilerplateFilter.getObservedPages() < BoilerplateFilter.MIN_PAGES && site.getTemplateBlocks() != null) {
+            return BoilerplateFilter.fromTemplateBlocks(site.getTemplateBlocks());
+        }
+        boilerplateFilter.freeze();
+        site.setTemplateBlocks(boilerplateFilter.serialize());
+        siteRepository.save(site);
+        logger.info(getPrefixForLogger() + "найдено шаблонных блоков: " + boilerplateFilter.getTemplateBlocksCount());
+        return boilerplateFilter;
+    }
+
+    private FingerprintIndex createFingerprintIndex(Site site) {
+        FingerprintIndex fingerprintIndex = new FingerprintIndex();
+        if (mode != IndexingMode.FULL) {
+            for (Object[] fingerprint : pageRepository.findFingerprintsBySite(site)) {
+                fingerprintIndex.register((Integer) fingerprint[0], (String) fingerprint[1], (Long) fingerprint[2]);
+            }
+        }
+        return fingerprintIndex;
+    }
+
     private synchronized void saveSiteChanges(Site site, String lastError) {
+        if (progressTracker != null) {
+            progressTracker.finish(Status.FAILED.name());
+        }
         site.setLast_error(lastError);
         site.setStatus(Status.FAILED);
         site.setStatus_time(new Date());
         new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                new AtomicBoolean(false)).saveSite(site);
+                new CancellationToken()).saveSite(site);
     }
 
     public synchronized void saveSiteChanges(Site site, Status status) {
+        if (progressTracker != null) {
+            progressTracker.finish(status.name());
+        }
         site.setStatus(status);
         site.setStatus_time(new Date());
         site.setLast_error("");
         new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                new AtomicBoolean(false)).saveSite(site);
-    }
-
-    public HashSet<Page> modifyPathsInPages(HashSet<Page> pagesHashSet) {
-        HashSet<Page> resultPagesHashSet = new HashSet<>();
-        ArrayList<String> pathList = new ArrayList<>();
-        for (Page page : pagesHashSet) {
-            String path = page.getPath().trim()
-                    .replaceFirst(ROOT_URL, "")
-                    .trim();
-            if (!path.equals("") && !pathList.contains(path)) {
-                pathList.add(path);
+                new CancellationToken()).saveSite(site);
+    }
+
+    public List<Page> modifyPathsInPages(List<Page> pages) {
+        List<Page> resultPages = new ArrayList<>();
+        for (Page page : pages) {
+            String path = urlNormalizer.toPath(page.getPath());
+            if (!path.equals("") && savedPaths.add(path)) {
                 page.setPath(path);
             } else {
                 continue;
             }
-            resultPagesHashSet.add(page);
+            resultPages.add(page);
         }
-        return resultPagesHashSet;
+        return resultPages;
     }
 }
\ No newline at end of file
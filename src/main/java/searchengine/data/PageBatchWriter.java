@@ -0,0 +1,165 @@
+package searchengine.data;
+
+import lombok.Setter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import searchengine.model.Page;
+import searchengine.repositories.PageRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Сохраняет страницы сайта в БД пачками по мере обхода. Пока объём
+ * несохранённого содержимого превышает бюджет, новые загрузки
+ * откладываются до освобождения места.
+ */
+public class PageBatchWriter {
+    private final PageRepository pageRepository;
+    private final int batchSize;
+    private final long maxInFlightBytes;
+    private final UnaryOperator<List<Page>> batchPreparer;
+    private final Executor writeExecutor;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final Queue<Runnable> capacityWaiters = new ConcurrentLinkedQueue<>();
+    private final List<Integer> savedPageIds = new CopyOnWriteArrayList<>();
+    @Setter
+    private Consumer<String> flushListener = url -> {
+    };
+    @Setter
+    private Consumer<List<Integer>> savedPagesListener = pageIds -> {
+    };
+    private List<Page> buffer = new ArrayList<>();
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+    private volatile boolean isAborted;
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public PageBatchWriter(PageRepository pageRepository, int batchSize, long maxInFlightBytes,
+                           UnaryOperator<List<Page>> batchPreparer, Executor writeExecutor) {
+        this.pageRepository = pageRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.batchPreparer = batchPreparer;
+        this.writeExecutor = writeExecutor;
+    }
+
+    public void add(Page page) {
+        inFlightBytes.addAndGet(getSize(page));
+        List<Page> batch = null;
+        synchronized (this) {
+            buffer.add(page);
+            if (buffer.size() >= batchSize) {
+                batch = buffer;
+                buffer = new ArrayList<>();
+            }
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+    }
+
+    public boolean hasCapacity() {
+        return inFlightBytes.get() < maxInFlightBytes;
+    }
+
+    public void whenCapacity(Runnable task) {
+        if (hasCapacity()) {
+            task.run();
+            return;
+        }
+        capacityWaiters.add(task);
+        submitBuffer();
+        if (hasCapacity()) {
+            runCapacityWaiters();
+        }
+    }
+
+    public CompletableFuture<Void> close() {
+        submitBuffer();
+        synchronized (this) {
+            return lastFlush;
+        }
+    }
+
+    public void abort() {
+        isAborted = true;
+        capacityWaiters.clear();
+    }
+
+    public List<Integer> getSavedPageIds() {
+        return new ArrayList<>(savedPageIds);
+    }
+
+    private void submitBuffer() {
+        List<Page> batch;
+        synchronized (this) {
+            batch = buffer;
+            buffer = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    private synchronized void submit(List<Page> batch) {
+        lastFlush = lastFlush.thenRunAsync(() -> flush(batch), writeExecutor);
+    }
+
+    private void flush(List<Page> batch) {
+        if (isAborted) {
+            return;
+        }
+        List<String> urls = batch.stream().map(Page::getPath).toList();
+        List<Integer> batchPageIds = new ArrayList<>();
+        try {
+            saveBatch(batchPreparer.apply(batch), batchPageIds);
+        } catch (Exception ex) {
+            logger.error("Ошибка подготовки пачки страниц к сохранению: " + ex.getMessage());
+        } finally {
+            inFlightBytes.addAndGet(-batch.stream().mapToLong(this::getSize).sum());
+            savedPageIds.addAll(batchPageIds);
+            urls.forEach(flushListener);
+            runCapacityWaiters();
+        }
+        if (!batchPageIds.isEmpty()) {
+            savedPagesListener.accept(batchPageIds);
+        }
+    }
+
+    private void saveBatch(List<Page> batch, List<Integer> batchPageIds) {
+        try {
+            pageRepository.saveAll(batch).forEach(page -> batchPageIds.add(page.getId()));
+        } catch (Exception ex) {
+            logger.error("Ошибка сохранения пачки страниц, страницы сохраняются по одной: " + ex.getMessage());
+            batchPageIds.clear();
+            savePageByPage(batch, batchPageIds);
+        }
+    }
+
+    private void savePageByPage(List<Page> batch, List<Integer> batchPageIds) {
+        for (Page page : batch) {
+            try {
+                batchPageIds.add(pageRepository.save(page).getId());
+            } catch (Exception ex) {
+                logger.error("Ошибка сохранения страницы " + page.getPath() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void runCapacityWaiters() {
+        Runnable waiter;
+        while (hasCapacity() && (waiter = capacityWaiters.poll()) != null) {
+            waiter.run();
+        }
+    }
+
+    private long getSize(Page page) {
+        String bodyText = page.getBodyText();
+        return (page.getRawContent().length() + (bodyText == null ? 0 : bodyText.length())) * 2L;
+    }
+}
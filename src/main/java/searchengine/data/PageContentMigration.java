@@ -0,0 +1,75 @@
+package searchengine.data;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import searchengine.model.CompressedTextConverter;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Однократный перенос HTML и текста страниц из старых столбцов таблицы
+ * page в сжатое хранилище page_content. Выполняется при запуске, если
+ * в page ещё остался столбец content; после переноса старые столбцы
+ * удаляются.
+ */
+@Component
+@RequiredArgsConstructor
+@DependsOn("entityManagerFactory")
+public class PageContentMigration {
+    private static final int BATCH_SIZE = 500;
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    @PostConstruct
+    public void migrate() {
+        if (!hasColumn("content")) {
+            return;
+        }
+        boolean hasBodyText = hasColumn("body_text");
+        logger.info("Перенос содержимого страниц в сжатое хранилище начат");
+        String select = "SELECT id, content" + (hasBodyText ? ", body_text" : "") + " FROM page "
+                + "WHERE id > ? AND content_id IS NULL ORDER BY id LIMIT " + BATCH_SIZE;
+        int lastId = 0;
+        int migratedCount = 0;
+        List<Map<String, Object>> rows;
+        while (!(rows = jdbcTemplate.queryForList(select, lastId)).isEmpty()) {
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("id")).intValue();
+                int contentId = insertContent((String) row.get("content"), (String) row.get("body_text"));
+                jdbcTemplate.update("UPDATE page SET content_id = ? WHERE id = ?", contentId, lastId);
+            }
+            migratedCount += rows.size();
+        }
+        jdbcTemplate.execute("ALTER TABLE page DROP COLUMN content" + (hasBodyText ? ", DROP COLUMN body_text" : ""));
+        logger.info("Перенос содержимого страниц завершён, перенесено страниц: " + migratedCount);
+    }
+
+    private int insertContent(String html, String bodyText) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO page_content (html, body_text) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setBytes(1, converter.convertToDatabaseColumn(html));
+            statement.setBytes(2, converter.convertToDatabaseColumn(bodyText));
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().intValue();
+    }
+
+    private boolean hasColumn(String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = 'page' AND column_name = ?", Integer.class, column);
+        return count != null && count > 0;
+    }
+}
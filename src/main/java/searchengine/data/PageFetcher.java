@@ -0,0 +1,136 @@
+package searchengine.data;
+
+import org.springframework.stereotype.Component;
+import searchengine.config.UserData;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Общий для всех сайтов загрузчик страниц. Держит пул постоянных
+ * соединений (HTTP/2, если сервер его поддерживает), запрашивает сжатие
+ * и возвращает тело ответа в виде байтов без разбора HTML. Размер тела
+ * ограничен и до распаковки, и после неё: больший ответ считается ошибкой
+ * загрузки.
+ */
+@Component
+public class PageFetcher {
+    private final UserData userData;
+    private final Duration timeout;
+    private final long maxBodyBytes;
+    private final HttpClient httpClient;
+
+    public PageFetcher(UserData userData) {
+        this.userData = userData;
+        this.timeout = Duration.ofMillis(userData.getPoliteness().getRequestTimeoutMillis());
+        this.maxBodyBytes = userData.getPoliteness().getMaxBodyMegabytes() * 1024L * 1024L;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public FetchResult fetch(String url) throws IOException {
+        return fetch(url, null, null);
+    }
+
+    public FetchResult fetch(String url, String etag, String lastModified) throws IOException {
+        return fetch(url, etag, lastModified, timeout);
+    }
+
+    public FetchResult fetch(String url, String etag, String lastModified, Duration timeout) throws IOException {
+        HttpResponse<InputStream> response = send(buildRequest(url, etag, lastModified, timeout),
+                HttpResponse.BodyHandlers.ofInputStream(), url);
+        HttpHeaders headers = response.headers();
+        byte[] body;
+        try (InputStream inputStream = limit(decode(limit(response.body(), url),
+                headers.firstValue("Content-Encoding").orElse("")), url)) {
+            body = inputStream.readAllBytes();
+        }
+        return new FetchResult(response.uri().toString(), response.statusCode(), headers, body);
+    }
+
+    public FetchStream fetchStream(String url) throws IOException {
+        HttpResponse<InputStream> response = send(buildRequest(url, null, null, timeout),
+                HttpResponse.BodyHandlers.ofInputStream(), url);
+        InputStream body = limit(decode(limit(response.body(), url),
+                response.headers().firstValue("Content-Encoding").orElse("")), url);
+        return new FetchStream(response.uri().toString(), response.statusCode(), body);
+    }
+
+    private HttpRequest buildRequest(String url, String etag, String lastModified, Duration timeout) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        if (userData.getUserAgent() != null) {
+            requestBuilder.header("User-Agent", userData.getUserAgent());
+        }
+        if (userData.getReferrer() != null) {
+            requestBuilder.header("Referer", userData.getReferrer());
+        }
+        if (etag != null) {
+            requestBuilder.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            requestBuilder.header("If-Modified-Since", lastModified);
+        }
+        return requestBuilder.build();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, String url)
+            throws IOException {
+        try {
+            return httpClient.send(request, bodyHandler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка страницы прервана: " + url);
+        }
+    }
+
+    private InputStream limit(InputStream body, String url) {
+        return new LimitedInputStream(body, maxBodyBytes, "Ответ сервера превышает " + maxBodyBytes + " байт: " + url);
+    }
+
+    private InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.isEmpty() || encoding.equals("identity")) {
+            return body;
+        }
+        BufferedInputStream bufferedBody = new BufferedInputStream(body);
+        bufferedBody.mark(2);
+        int first = bufferedBody.read();
+        int second = bufferedBody.read();
+        bufferedBody.reset();
+        if (first == -1) {
+            return bufferedBody;
+        }
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            return new GZIPInputStream(bufferedBody);
+        }
+        if (encoding.equals("deflate")) {
+            boolean hasZlibHeader = (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+            return hasZlibHeader ? new InflaterInputStream(bufferedBody)
+                    : new InflaterInputStream(bufferedBody, new Inflater(true));
+        }
+        body.close();
+        throw new IOException("Неподдерживаемое сжатие ответа: " + contentEncoding);
+    }
+}
@@ -0,0 +1,70 @@
+package searchengine.data;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Статическая важность страниц сайта по графу ссылок (PageRank).
+ * Считается степенным методом над массивами примитивов: на каждой
+ * итерации вершина параллельно собирает вклад входящих ссылок, вес
+ * страниц без исходящих ссылок распределяется поровну между всеми.
+ */
+public class PageRank {
+    private static final double DAMPING = 0.85;
+    private static final double EPSILON = 1e-6;
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * @param offsets исходящие ссылки вершины v — targets[offsets[v]..offsets[v + 1])
+     * @return важность вершин, в сумме дающая единицу
+     */
+    public static double[] compute(int[] offsets, int[] targets) {
+        int nodesCount = offsets.length - 1;
+        if (nodesCount <= 0) {
+            return new double[0];
+        }
+        int[] inOffsets = new int[nodesCount + 1];
+        for (int i = 0; i < offsets[nodesCount]; i++) {
+            inOffsets[targets[i] + 1]++;
+        }
+        Arrays.parallelPrefix(inOffsets, Integer::sum);
+        int[] sources = new int[offsets[nodesCount]];
+        int[] position = Arrays.copyOf(inOffsets, nodesCount);
+        for (int source = 0; source < nodesCount; source++) {
+            for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+                sources[position[targets[i]]++] = source;
+            }
+        }
+        double[] rank = new double[nodesCount];
+        double[] nextRank = new double[nodesCount];
+        double[] contribution = new double[nodesCount];
+        Arrays.fill(rank, 1.0 / nodesCount);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[] currentRank = rank;
+            IntStream.range(0, nodesCount).parallel().forEach(v -> {
+                int outDegree = offsets[v + 1] - offsets[v];
+                contribution[v] = outDegree == 0 ? 0 : currentRank[v] / outDegree;
+            });
+            double danglingRank = IntStream.range(0, nodesCount).parallel()
+                    .filter(v -> offsets[v + 1] == offsets[v])
+                    .mapToDouble(v -> currentRank[v])
+                    .sum();
+            double base = (1 - DAMPING) / nodesCount + DAMPING * danglingRank / nodesCount;
+            double[] next = nextRank;
+            double delta = IntStream.range(0, nodesCount).parallel().mapToDouble(v -> {
+                double sum = 0;
+                for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                    sum += contribution[sources[i]];
+                }
+                next[v] = base + DAMPING * sum;
+                return Math.abs(next[v] - currentRank[v]);
+            }).sum();
+            nextRank = rank;
+            rank = next;
+            if (delta < EPSILON) {
+                break;
+            }
+        }
+        return rank;
+    }
+}
@@ -6,216 +6,185 @@ import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import searchengine.model.*;
 import searchengine.repositories.*;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import static java.lang.Thread.currentThread;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
-public class PagesIndexer extends RecursiveAction {
+public class PagesIndexer {
     private final FieldRepository fieldRepository;
     private final IndexRepository indexRepository;
     private final LemmaRepository lemmaRepository;
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
     @Setter
-    private List<Page> pages;
-    @Setter
     private Site site;
+    @Setter
+    private FingerprintIndex fingerprintIndex;
+    @Setter
+    private BoilerplateFilter boilerplateFilter;
+    @Setter
+    private LemmaDictionary lemmaDictionary;
+    @Setter
+    private PostingsWriter postingsWriter;
+    @Setter
+    private boolean isDeltaMode;
     private Float titleWeight;
     private Float bodyWeight;
-    private static final int THRESHOLD = 20;
     @NonNull
-    private volatile AtomicBoolean isInterrupted;
-    private volatile Lemma lemmaObject;
-    private final AtomicInteger frequency = new AtomicInteger();
+    private final CancellationToken cancellationToken;
     private final Logger logger = LogManager.getLogger(getClass());
 
-    public synchronized void setIsInterrupted(boolean isInterrupted) {
-        this.isInterrupted.set(isInterrupted);
-        interruptChecking();
-    }
-
     private void getWeights() {
         titleWeight = fieldRepository.findByName("title").getWeight();
         bodyWeight = fieldRepository.findByName("body").getWeight();
     }
 
-    @Override
-    protected void compute() {
-        if (interruptChecking()) {
-            return;
-        }
-        getWeights();
-        if (this.pages.size() > THRESHOLD) {
-            forkJoinIndexingOrganization();
-        } else {
-            recursivePagesIndexing();
-        }
-    }
-
-    private void forkJoinIndexingOrganization() {
-        List<PagesIndexer> subtasks = new ArrayList<>(createSubtasks());
-        for (RecursiveAction subtask : subtasks) {
-            if (interruptChecking()) {
-                return;
-            }
-            subtask.fork();
-        }
-        for (RecursiveAction task : subtasks) {
-            if (interruptChecking()) {
-                return;
+    public void pageIndexing(Page page) {
+        PageLemmas pageLemmas = lemmatize(page);
+        if (pageLemmas != null) {
+            saveLemmas(pageLemmas);
+            postingsWriter.flush();
+            if (isDeltaMode) {
+                lemmaDictionary.deleteUnused();
+            } else {
+                lemmaDictionary.flush();
             }
-            task.join();
         }
     }
 
-    private void recursivePagesIndexing() {
-        for (Page page : pages) {
-            if (interruptChecking()) {
-                return;
-            }
-            pageIndexing(page);
+    public PageLemmas lemmatize(Page page) {
+        PageLemmas pageLemmas = extractLemmas(page);
+        if (pageLemmas == null && isDeltaMode && !cancellationToken.isCancelled()) {
+            return new PageLemmas(page.getId(), page.getPath(), Map.of(), Map.of());
         }
+        return pageLemmas;
     }
 
-    private synchronized boolean interruptChecking() {
-        if (isInterrupted.get()) {
-            String siteName = site.getName();
-            logger.info("Сайт \"" + siteName + "\". Поток индексации " + Thread.currentThread().getName() + " завершён");
-            site.setStatus(Status.FAILED);
-            site.setLast_error("Индексация сайта прервана пользователем");
-            saveSite(site);
-            currentThread().interrupt();
-            return true;
+    private PageLemmas extractLemmas(Page page) {
+        if (page.getCode() >= 400) {
+            return null;
+        }
+        HtmlTextExtractor.ensureExtracted(page);
+        String titleText = page.getTitle();
+        String bodyText = boilerplateFilter == null
+                ? page.getBodyText().replace('\n', ' ')
+                : boilerplateFilter.extractText(page.getBodyText());
+        if (isDuplicate(page, titleText + " " + bodyText)) {
+            return null;
+        }
+        if (titleText.trim().equals("") || bodyText.trim().equals("") || cancellationToken.isCancelled()) {
+            return null;
+        }
+        try {
+            return new PageLemmas(page.getId(), page.getPath(), new Lemmatizer().getAllLemmas(titleText),
+                    new Lemmatizer().getAllLemmas(bodyText));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return false;
     }
 
-    public void pageIndexing(Page page) {
+    public void saveLemmas(PageLemmas pageLemmas) {
         if (titleWeight == null || bodyWeight == null) {
             getWeights();
         }
-        int siteCode = page.getCode();
-        if (siteCode < 400) {
-            String url = page.getPath();
-            String html = page.getContent();
-            Document document = Jsoup.parse(html, url);
-            String titleText = document.select("title").text();
-            String bodyText = document.select("body").text();
-            rankCalculator(titleText, bodyText, url);
+        Set<String> pageLemmaNames = new HashSet<>(pageLemmas.titleLemmas().keySet());
+        pageLemmaNames.addAll(pageLemmas.bodyLemmas().keySet());
+        if (cancellationToken.isCancelled()) {
+            return;
         }
+        Map<String, Integer> lemmaIds = lemmaDictionary.resolve(pageLemmaNames);
+        Map<Integer, Float> postings = calculateRanks(pageLemmas.titleLemmas(), pageLemmas.bodyLemmas(), lemmaIds);
+        if (isDeltaMode) {
+            replacePostings(pageLemmas.pageId(), postings);
+        } else {
+            lemmaDictionary.addPage(postings.keySet());
+            postings.forEach((lemmaId, rank) -> postingsWriter.add(pageLemmas.pageId(), lemmaId, rank));
+        }
+        lemmaDictionary.flushIfNeeded();
     }
 
-    private List<PagesIndexer> createSubtasks() {
-        List<PagesIndexer> subtasks = new ArrayList<>();
-        PagesIndexer subtask1 = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, isInterrupted);
-        subtask1.setPages(pages.subList(0, pages.size() / 2));
-        subtask1.setSite(site);
-        PagesIndexer subtask2 = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, isInterrupted);
-        subtask2.setPages(pages.subList(pages.size() / 2, pages.size()));
-        subtask2.setSite(site);
-        subtasks.add(subtask1);
-        subtasks.add(subtask2);
-        return subtasks;
+    private void replacePostings(int pageId, Map<Integer, Float> postings) {
+        Map<Integer, Float> oldPostings = new HashMap<>();
+        for (Index index : indexRepository.findAllByPageIdIn(List.of(pageId))) {
+            oldPostings.put(index.getLemmaId(), index.getRank());
+        }
+        List<Integer> addedLemmaIds = new ArrayList<>();
+        postings.forEach((lemmaId, rank) -> {
+            Float oldRank = oldPostings.remove(lemmaId);
+            if (oldRank == null) {
+                postingsWriter.add(pageId, lemmaId, rank);
+                addedLemmaIds.add(lemmaId);
+            } else if (Float.compare(oldRank, rank) != 0) {
+                postingsWriter.update(pageId, lemmaId, rank);
+            }
+        });
+        oldPostings.keySet().forEach(lemmaId -> postingsWriter.delete(pageId, lemmaId));
+        lemmaDictionary.addPage(addedLemmaIds);
+        lemmaDictionary.removePage(oldPostings.keySet());
     }
 
-    private void rankCalculator(String titleText, String bodyText, String url) {
-        Map<String, Integer> titleLemmasMap, bodyLemmasMap;
-        if ((!titleText.trim().equals("")) && (!bodyText.trim().equals(""))) {
-            if (interruptChecking()) {
-                return;
-            }
-            try {
-                titleLemmasMap = new Lemmatizer().getAllLemmas(titleText);
-                bodyLemmasMap = new Lemmatizer().getAllLemmas(bodyText);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            Map<String, Integer> totalLemmasMap = new HashMap<>(titleLemmasMap);
-            totalLemmasMap.putAll(bodyLemmasMap);
-            countLemmas(totalLemmasMap);
-            calculateRanks(titleLemmasMap, bodyLemmasMap, url);
+    private boolean isDuplicate(Page page, String text) {
+        if (fingerprintIndex == null) {
+            return false;
+        }
+        List<String> tokens = ContentFingerprint.tokenize(text);
+        long simHash = ContentFingerprint.simHash(tokens);
+        Integer originalId = fingerprintIndex.registerOrGetOriginal(page.getId(), page.getContentHash(), simHash, tokens.size());
+        pageRepository.updateFingerprint(page.getId(), simHash, originalId);
+        if (originalId != null) {
+            logger.info("Сайт \"" + site.getName() + "\". Страница " + page.getPath()
+                    + " является копией страницы с id=" + originalId + " и не индексируется");
+            return true;
         }
+        return false;
     }
 
-    private void calculateRanks(@NotNull Map<String, Integer> titleMap, Map<String, Integer> bodyMap, String path) {
+    private Map<Integer, Float> calculateRanks(@NotNull Map<String, Integer> titleMap, Map<String, Integer> bodyMap,
+                                              Map<String, Integer> lemmaIds) {
+        Map<Integer, Float> postings = new HashMap<>();
         String lemma;
         float rank;
         for (Map.Entry<String, Integer> entry : titleMap.entrySet()) {
-            if (interruptChecking()) {
-                return;
-            }
             lemma = entry.getKey();
             rank = entry.getValue() * titleWeight;
             if (bodyMap.containsKey(lemma)) {
                 rank += bodyMap.get(lemma) * bodyWeight;
             }
-            saveIndex(lemma, path, rank);
+            putRank(postings, lemmaIds.get(lemma), rank);
         }
         for (Map.Entry<String, Integer> entry : bodyMap.entrySet()) {
-            if (interruptChecking()) {
-                return;
-            }
             lemma = entry.getKey();
             if (!titleMap.containsKey(lemma)) {
                 rank = entry.getValue() * bodyWeight;
-                saveIndex(lemma, path, rank);
+                putRank(postings, lemmaIds.get(lemma), rank);
             }
         }
+        return postings;
     }
 
-    private void saveIndex(String lemma, String path, Float rank) {
-        int lemmaId = lemmaRepository.findByLemmaAndSiteLemma(lemma, site).getId();
-        Page page = pageRepository.findByPathAndSitePage(path, site);
-        if (Optional.ofNullable(page).isPresent()) {
-            indexRepository.save(new Index(page.getId(), lemmaId, rank));
-            site.setStatus(Status.INDEXING);
-            site.setStatus_time(new Date());
-            saveSite(site);
-        }
-    }
-
-    private void countLemmas(Map<String, Integer> lemmasMap) {
-        try {
-            String lemma;
-            for (Map.Entry<String, Integer> entry : lemmasMap.entrySet()) {
-                if (interruptChecking()) {
-                    return;
-                }
-                lemma = entry.getKey().trim();
-                saveLemma(lemma);
-            }
-        } catch (Exception ex) {
-            String ExceptionMessage = ex.getMessage();
-            logger.error(ExceptionMessage);
-            site.setLast_error(ExceptionMessage);
-            site.setStatus(Status.FAILED);
-            saveSite(site);
+    private void putRank(Map<Integer, Float> postings, Integer lemmaId, float rank) {
+        if (lemmaId != null) {
+            postings.put(lemmaId, rank);
         }
     }
 
-    private void saveLemma(String lemma) {
-        synchronized (lemmaRepository) {
-            if (!lemmaRepository.existsByLemmaAndSiteLemma(lemma, site)) {
-                lemmaRepository.save(new Lemma(lemma, 1, site));
-            } else {
-                lemmaObject = lemmaRepository.findByLemmaAndSiteLemma(lemma, site);
-                frequency.set(lemmaObject.getFrequency());
-                if (frequency.get() < pageRepository.countBySitePage(site)) {
-                    lemmaObject.setFrequency(frequency.incrementAndGet());
-                    lemmaRepository.save(lemmaObject);
-                }
-            }
+    public void retractPages(List<Integer> pageIds) {
+        if (pageIds.isEmpty()) {
+            return;
         }
+        Map<Integer, Set<Integer>> lemmaIdsByPage = indexRepository.findAllByPageIdIn(pageIds).stream()
+                .collect(Collectors.groupingBy(Index::getPageId,
+                        Collectors.mapping(Index::getLemmaId, Collectors.toSet())));
+        lemmaIdsByPage.forEach((pageId, lemmaIds) -> {
+            lemmaIds.forEach(lemmaId -> postingsWriter.delete(pageId, lemmaId));
+            lemmaDictionary.removePage(lemmaIds);
+        });
+        postingsWriter.flush();
+        lemmaDictionary.deleteUnused();
     }
 
     public void saveSite(Site site) {
@@ -226,7 +195,13 @@ public class PagesIndexer extends RecursiveAction {
             site.setLast_error(site.getLast_error());
             site.setStatus(site.getStatus());
             site.setStatus_time(site.getStatus_time());
+            if (site.getTemplateBlocks() == null) {
+                site.setTemplateBlocks(foundSite.getTemplateBlocks());
+            }
         }
         siteRepository.save(site);
     }
+
+    public record PageLemmas(int pageId, String path, Map<String, Integer> titleLemmas, Map<String, Integer> bodyLemmas) {
+    }
 }
\ No newline at end of file
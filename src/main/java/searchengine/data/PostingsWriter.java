@@ -0,0 +1,81 @@
+package searchengine.data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись изменений таблицы index пачками. Новые строки (страница, лемма,
+ * ранг), изменения ранга и удаления копятся в памяти каждые в своём
+ * буфере и уходят в БД пакетными запросами, когда их набирается на
+ * пачку, и при явном сбросе в конце индексации.
+ */
+public class PostingsWriter {
+    private final Buffer inserts;
+    private final Buffer updates;
+    private final Buffer deletes;
+
+    public PostingsWriter(JdbcTemplate jdbcTemplate, int batchSize) {
+        int size = Math.max(1, batchSize);
+        inserts = new Buffer(jdbcTemplate, "INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES (?, ?, ?)", size);
+        updates = new Buffer(jdbcTemplate, "UPDATE `index` SET `rank` = ? WHERE page_id = ? AND lemma_id = ?", size);
+        deletes = new Buffer(jdbcTemplate, "DELETE FROM `index` WHERE page_id = ? AND lemma_id = ?", size);
+    }
+
+    public void add(int pageId, int lemmaId, float rank) {
+        inserts.add(new Object[]{pageId, lemmaId, rank});
+    }
+
+    public void update(int pageId, int lemmaId, float rank) {
+        updates.add(new Object[]{rank, pageId, lemmaId});
+    }
+
+    public void delete(int pageId, int lemmaId) {
+        deletes.add(new Object[]{pageId, lemmaId});
+    }
+
+    public void flush() {
+        deletes.flush();
+        updates.flush();
+        inserts.flush();
+    }
+
+    private static class Buffer {
+        private final JdbcTemplate jdbcTemplate;
+        private final String sql;
+        private final int batchSize;
+        private List<Object[]> rows = new ArrayList<>();
+
+        private Buffer(JdbcTemplate jdbcTemplate, String sql, int batchSize) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.sql = sql;
+            this.batchSize = batchSize;
+        }
+
+        private void add(Object[] row) {
+            List<Object[]> batch = null;
+            synchronized (this) {
+                rows.add(row);
+                if (rows.size() >= batchSize) {
+                    batch = rows;
+                    rows = new ArrayList<>();
+                }
+            }
+            if (batch != null) {
+                jdbcTemplate.batchUpdate(sql, batch);
+            }
+        }
+
+        private void flush() {
+            List<Object[]> batch;
+            synchronized (this) {
+                batch = rows;
+                rows = new ArrayList<>();
+            }
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, batch);
+            }
+        }
+    }
+}
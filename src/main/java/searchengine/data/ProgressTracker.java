@@ -0,0 +1,97 @@
+package searchengine.data;
+
+import searchengine.dto.indexing.SiteProgress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Счётчики хода индексации одного сайта. Обновляются из потоков обхода
+ * и индексации без общих блокировок, читаются для API и периодической
+ * записи статуса сайта.
+ */
+public class ProgressTracker {
+    private final String url;
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder pagesFetched = new LongAdder();
+    private final LongAdder pagesSaved = new LongAdder();
+    private final LongAdder pagesIndexed = new LongAdder();
+    private volatile IntSupplier crawlQueue = () -> 0;
+    private volatile IntSupplier indexQueue = () -> 0;
+    private volatile String stage = "CRAWLING";
+    private volatile long finishNanos;
+    private long lastPersistedCount = -1;
+
+    public ProgressTracker(String url, String name) {
+        this.url = url;
+        this.name = name;
+    }
+
+    public void pageFetched() {
+        pagesFetched.increment();
+    }
+
+    public void pagesSaved(int count) {
+        pagesSaved.add(count);
+    }
+
+    public void pageIndexed() {
+        pagesIndexed.increment();
+    }
+
+    public long getPagesIndexed() {
+        return pagesIndexed.sum();
+    }
+
+    public void setCrawlQueue(IntSupplier crawlQueue) {
+        this.crawlQueue = crawlQueue;
+    }
+
+    public void setIndexQueue(IntSupplier indexQueue) {
+        this.indexQueue = indexQueue;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public void finish(String stage) {
+        this.stage = stage;
+        finishNanos = System.nanoTime();
+        crawlQueue = () -> 0;
+        indexQueue = () -> 0;
+    }
+
+    public boolean isFinished() {
+        return finishNanos != 0;
+    }
+
+    synchronized boolean hasChangedSinceLastPersist() {
+        long count = pagesFetched.sum() + pagesSaved.sum() + pagesIndexed.sum();
+        if (count == lastPersistedCount) {
+            return false;
+        }
+        lastPersistedCount = count;
+        return true;
+    }
+
+    public SiteProgress getSnapshot() {
+        long elapsedNanos = (isFinished() ? finishNanos : System.nanoTime()) - startNanos;
+        double elapsedSeconds = Math.max(1.0, elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        SiteProgress progress = new SiteProgress();
+        progress.setUrl(url);
+        progress.setName(name);
+        progress.setStage(stage);
+        progress.setPagesFetched(pagesFetched.sum());
+        progress.setPagesSaved(pagesSaved.sum());
+        progress.setPagesIndexed(pagesIndexed.sum());
+        progress.setCrawlQueue(crawlQueue.getAsInt());
+        progress.setIndexQueue(indexQueue.getAsInt());
+        progress.setElapsedSeconds(TimeUnit.NANOSECONDS.toSeconds(elapsedNanos));
+        progress.setFetchedPerSecond(progress.getPagesFetched() / elapsedSeconds);
+        progress.setIndexedPerSecond(progress.getPagesIndexed() / elapsedSeconds);
+        return progress;
+    }
+}
@@ -0,0 +1,84 @@
+package searchengine.data;
+
+import searchengine.config.Revisit;
+import searchengine.model.Page;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Оценивает частоту изменения страницы по истории посещений и назначает
+ * время следующего посещения. Частота считается оценкой Чо и
+ * Гарсиа-Молины по числу посещений, числу замеченных изменений и
+ * суммарному времени наблюдения; интервал за одно посещение меняется
+ * не более чем вдвое.
+ */
+public class RevisitPolicy {
+    private final Duration initialInterval;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+
+    public RevisitPolicy(Revisit revisit) {
+        this.initialInterval = Duration.ofHours(revisit.getInitialIntervalHours());
+        this.minInterval = Duration.ofMinutes(revisit.getMinIntervalMinutes());
+        this.maxInterval = Duration.ofDays(revisit.getMaxIntervalDays());
+    }
+
+    public void recordFirstVisit(Page page) {
+        Date now = new Date();
+        page.setLastVisit(now);
+        page.setNextVisit(new Date(now.getTime() + clamp(initialInterval).toMillis()));
+    }
+
+    public void recordVisit(Page page, boolean isChanged) {
+        Date now = new Date();
+        if (page.getLastVisit() == null) {
+            recordFirstVisit(page);
+            return;
+        }
+        long elapsedSeconds = Math.max(1, (now.getTime() - page.getLastVisit().getTime()) / 1000);
+        page.setVisitsCount(page.getVisitsCount() + 1);
+        page.setChangesCount(page.getChangesCount() + (isChanged ? 1 : 0));
+        page.setObservedSeconds(page.getObservedSeconds() + elapsedSeconds);
+        Duration interval = estimateInterval(page);
+        Duration lastInterval = Duration.ofSeconds(elapsedSeconds);
+        if (interval.compareTo(lastInterval.multipliedBy(2)) > 0) {
+            interval = lastInterval.multipliedBy(2);
+        } else if (interval.compareTo(lastInterval.dividedBy(2)) < 0) {
+            interval = lastInterval.dividedBy(2);
+        }
+        page.setLastVisit(now);
+        page.setNextVisit(new Date(now.getTime() + clamp(interval).toMillis()));
+    }
+
+    public void recordChange(Page page, Page previousVersion) {
+        page.setLastVisit(previousVersion.getLastVisit());
+        page.setVisitsCount(previousVersion.getVisitsCount());
+        page.setChangesCount(previousVersion.getChangesCount());
+        page.setObservedSeconds(previousVersion.getObservedSeconds());
+        recordVisit(page, true);
+    }
+
+    public void postpone(Page page) {
+        Date now = new Date();
+        page.setNextVisit(new Date(now.getTime() + minInterval.toMillis()));
+    }
+
+    private Duration estimateInterval(Page page) {
+        double visits = page.getVisitsCount();
+        double changes = Math.min(page.getChangesCount(), visits);
+        double meanIntervalSeconds = page.getObservedSeconds() / visits;
+        double changeRate = -Math.log((visits - changes + 0.5) / (visits + 0.5)) / meanIntervalSeconds;
+        if (changeRate <= 0) {
+            return maxInterval;
+        }
+        return Duration.ofSeconds((long) Math.min(maxInterval.getSeconds(), 1 / changeRate));
+    }
+
+    private Duration clamp(Duration interval) {
+        if (interval.compareTo(minInterval) < 0) {
+            return minInterval;
+        }
+        return interval.compareTo(maxInterval) > 0 ? maxInterval : interval;
+    }
+}
@@ -0,0 +1,197 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import searchengine.config.Revisit;
+import searchengine.config.UserData;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.*;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновый повторный обход проиндексированных страниц. Раз в интервал
+ * выбирает страницы, у которых подошло время следующего посещения,
+ * в пределах часового бюджета загрузок, проверяет их условным запросом
+ * и переиндексирует только изменившиеся.
+ */
+@Component
+public class RevisitScheduler {
+    private final UserData userData;
+    private final FieldRepository fieldRepository;
+    private final IndexRepository indexRepository;
+    private final LemmaRepository lemmaRepository;
+    private final PageRepository pageRepository;
+    private final SiteRepository siteRepository;
+    private final CrawlScheduler crawlScheduler;
+    private final PageFetcher pageFetcher;
+    private final IndexStore indexStore;
+    private final SiteLocks siteLocks;
+    private final RevisitPolicy revisitPolicy;
+    private final Set<Integer> inFlightPageIds = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "revisit-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private double fetchTokens;
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public RevisitScheduler(UserData userData, FieldRepository fieldRepository, IndexRepository indexRepository,
+                            LemmaRepository lemmaRepository, PageRepository pageRepository, SiteRepository siteRepository,
+                            CrawlScheduler crawlScheduler, PageFetcher pageFetcher, IndexStore indexStore,
+                            SiteLocks siteLocks) {
+        this.userData = userData;
+        this.fieldRepository = fieldRepository;
+        this.indexRepository = indexRepository;
+        this.lemmaRepository = lemmaRepository;
+        this.pageRepository = pageRepository;
+        this.siteRepository = siteRepository;
+        this.crawlScheduler = crawlScheduler;
+        this.pageFetcher = pageFetcher;
+        this.indexStore = indexStore;
+        this.siteLocks = siteLocks;
+        this.revisitPolicy = new RevisitPolicy(userData.getRevisit());
+    }
+
+    @PostConstruct
+    public void start() {
+        Revisit revisit = userData.getRevisit();
+        if (!revisit.isEnabled() || revisit.getFetchBudgetPerHour() <= 0) {
+            return;
+        }
+        long interval = Math.max(1, revisit.getCheckIntervalSeconds());
+        timer.scheduleWithFixedDelay(this::revisitDuePages, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void revisitDuePages() {
+        try {
+            Revisit revisit = userData.getRevisit();
+            double tokensPerCheck = revisit.getFetchBudgetPerHour() * Math.max(1, revisit.getCheckIntervalSeconds()) / 3600.0;
+            fetchTokens = Math.min(fetchTokens + tokensPerCheck, Math.max(1.0, tokensPerCheck));
+            int quota = (int) fetchTokens - inFlightPageIds.size();
+            if (quota <= 0) {
+                return;
+            }
+            List<Integer> pageIds = pageRepository.findIdsDueForRevisit(new Date(), PageRequest.of(0, quota));
+            for (Integer pageId : pageIds) {
+                if (inFlightPageIds.add(pageId)) {
+                    fetchTokens--;
+                    pageRepository.findById(pageId).ifPresentOrElse(this::submitRevisit,
+                            () -> inFlightPageIds.remove(pageId));
+                }
+            }
+        } catch (Exception ex) {
+            logger.error("Ошибка планирования повторного обхода: " + ex.getMessage());
+        }
+    }
+
+    private void submitRevisit(Page page) {
+        String url = new UrlNormalizer(page.getSitePage().getUrl(), userData.getUrlFilter()).toUrl(page.getPath());
+        crawlScheduler.submit(url, () -> revisit(page, url), crawlScheduler.getVirtualFetchExecutor(),
+                () -> inFlightPageIds.remove(page.getId()));
+    }
+
+    private void revisit(Page page, String url) {
+        String siteUrl = page.getSitePage().getUrl();
+        boolean isLocked = siteLocks.tryAcquire(siteUrl);
+        try {
+            if (!isLocked || !isSiteIndexed(page.getSitePage())) {
+                crawlScheduler.release(url);
+                return;
+            }
+            FetchResult response = null;
+            long startNanos = System.nanoTime();
+            try {
+                response = pageFetcher.fetch(url, page.getEtag(), page.getLastModified());
+            } catch (Exception ex) {
+                logger.info("Повторный обход: страница " + url + " недоступна: " + ex.getMessage());
+            } finally {
+                crawlScheduler.release(url);
+            }
+            if (response == null || response.isTransientError()) {
+                crawlScheduler.reportCongestion(url, response == null ? Duration.ZERO : response.retryAfter());
+                revisitPolicy.postpone(page);
+                saveVisit(page);
+                return;
+            }
+            crawlScheduler.reportSuccess(url, System.nanoTime() - startNanos);
+            if (response.isNotModified() || (!response.isError() && response.contentHash().equals(page.getContentHash()))) {
+                revisitPolicy.recordVisit(page, false);
+                saveVisit(page);
+                return;
+            }
+            reindexChangedPage(page, response);
+        } catch (Exception ex) {
+            logger.error("Ошибка повторного обхода страницы " + url + ": " + ex.getMessage());
+        } finally {
+            inFlightPageIds.remove(page.getId());
+            if (isLocked) {
+                siteLocks.release(siteUrl);
+            }
+        }
+    }
+
+    private boolean isSiteIndexed(Site site) {
+        return siteRepository.findById(site.getId()).map(found -> found.getStatus() == Status.INDEXED).orElse(false);
+    }
+
+    private void reindexChangedPage(Page page, FetchResult response) throws IOException {
+        Site site = page.getSitePage();
+        PagesIndexer indexer = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository,
+                siteRepository, new CancellationToken());
+        indexer.setSite(site);
+        indexer.setBoilerplateFilter(BoilerplateFilter.fromTemplateBlocks(site.getTemplateBlocks()));
+        indexer.setLemmaDictionary(indexStore.openDictionary(site));
+        indexer.setPostingsWriter(indexStore.openPostingsWriter());
+        indexer.setDeltaMode(true);
+        revisitPolicy.recordVisit(page, true);
+        if (response.isError()) {
+            indexer.retractPages(List.of(page.getId()));
+            page.setCode(response.statusCode());
+            pageRepository.save(page);
+            logger.info("Повторный обход: страница " + page.getPath() + " исключена из индекса, статус "
+                    + response.statusCode());
+            return;
+        }
+        if (!response.isHtml()) {
+            indexer.retractPages(List.of(page.getId()));
+            pageRepository.save(page);
+            return;
+        }
+        SiteMapCreator siteMapCreator = new SiteMapCreator(pageRepository);
+        siteMapCreator.setUserData(userData);
+        siteMapCreator.getPageData(page, response);
+        pageRepository.save(page);
+        Status status = site.getStatus();
+        indexer.pageIndexing(page);
+        site.setStatus(status);
+        site.setStatus_time(new Date());
+        indexer.saveSite(site);
+        logger.info("Повторный обход: страница " + page.getPath() + " изменилась и переиндексирована");
+    }
+
+    private void saveVisit(Page page) {
+        pageRepository.updateVisit(page.getId(), page.getLastVisit(), page.getNextVisit(), page.getVisitsCount(),
+                page.getChangesCount(), page.getObservedSeconds());
+    }
+}
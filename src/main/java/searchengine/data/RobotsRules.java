@@ -0,0 +1,156 @@
+package searchengine.data;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Правила robots.txt для нашего агента: запреты и разрешения (побеждает
+ * самое длинное совпадение, при равенстве — разрешение), Crawl-delay и
+ * адреса карт сайта.
+ */
+public class RobotsRules {
+    private final List<Rule> rules;
+    private final Duration crawlDelay;
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<Rule> rules, Duration crawlDelay, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+        this.sitemaps = sitemaps;
+    }
+
+    public static RobotsRules allowAll() {
+        return new RobotsRules(List.of(), Duration.ZERO, List.of());
+    }
+
+    public static RobotsRules parse(String content, String userAgent) {
+        String agentToken = userAgent == null ? "" : userAgent.toLowerCase(Locale.ROOT);
+        List<String> sitemaps = new ArrayList<>();
+        Group bestGroup = null;
+        Group defaultGroup = null;
+        Group currentGroup = null;
+        boolean readingAgents = false;
+        for (String rawLine : content.split("\r?\n|\r")) {
+            String line = rawLine.replaceFirst("#.*", "").trim();
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (key) {
+                case "user-agent" -> {
+                    if (!readingAgents) {
+                        currentGroup = new Group();
+                        readingAgents = true;
+                    }
+                    String agent = value.toLowerCase(Locale.ROOT);
+                    if (agent.equals("*")) {
+                        defaultGroup = defaultGroup == null ? currentGroup : defaultGroup;
+                    } else if (!agent.isEmpty() && agentToken.contains(agent)
+                            && (bestGroup == null || agent.length() > bestGroup.matchLength)) {
+                        currentGroup.matchLength = agent.length();
+                        bestGroup = currentGroup;
+                    }
+                }
+                case "allow", "disallow" -> {
+                    readingAgents = false;
+                    if (currentGroup != null && !value.isEmpty()) {
+                        currentGroup.rules.add(new Rule(value, key.equals("allow")));
+                    }
+                }
+                case "crawl-delay" -> {
+                    readingAgents = false;
+                    if (currentGroup != null) {
+                        currentGroup.crawlDelay = parseDelay(value);
+                    }
+                }
+                case "sitemap" -> sitemaps.add(value);
+                default -> readingAgents = false;
+            }
+        }
+        Group group = bestGroup != null ? bestGroup : defaultGroup;
+        if (group == null) {
+            return new RobotsRules(List.of(), Duration.ZERO, sitemaps);
+        }
+        return new RobotsRules(group.rules, group.crawlDelay, sitemaps);
+    }
+
+    public boolean isAllowed(String url) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        String path = getPathWithQuery(url);
+        Rule bestRule = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (bestRule == null || rule.length() > bestRule.length()
+                    || (rule.length() == bestRule.length() && rule.allow()))) {
+                bestRule = rule;
+            }
+        }
+        return bestRule == null || bestRule.allow();
+    }
+
+    public Duration getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    private static String getPathWithQuery(String url) {
+        try {
+            URI uri = URI.create(url);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+        } catch (IllegalArgumentException ex) {
+            return url;
+        }
+    }
+
+    private static Duration parseDelay(String value) {
+        try {
+            return Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+        } catch (NumberFormatException ex) {
+            return Duration.ZERO;
+        }
+    }
+
+    private static class Group {
+        private final List<Rule> rules = new ArrayList<>();
+        private Duration crawlDelay = Duration.ZERO;
+        private int matchLength;
+    }
+
+    private record Rule(Pattern pattern, int length, boolean allow) {
+        Rule(String value, boolean allow) {
+            this(compile(value), value.length(), allow);
+        }
+
+        boolean matches(String path) {
+            return pattern.matcher(path).lookingAt();
+        }
+
+        private static Pattern compile(String value) {
+            boolean anchored = value.endsWith("$");
+            String body = anchored ? value.substring(0, value.length() - 1) : value;
+            StringBuilder regex = new StringBuilder();
+            String[] parts = body.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    regex.append(".*");
+                }
+                regex.append(Pattern.quote(parts[i]));
+            }
+            if (anchored) {
+                regex.append("$");
+            }
+            return Pattern.compile(regex.toString());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import searchengine.config.UserData;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class RobotsTxtCache {
+    private static final Duration TIME_TO_LIVE = Duration.ofHours(24);
+    private final PageFetcher pageFetcher;
+    private final UserData userData;
+    private final Map<String, CachedRules> cache = new ConcurrentHashMap<>();
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public RobotsTxtCache(PageFetcher pageFetcher, UserData userData) {
+        this.pageFetcher = pageFetcher;
+        this.userData = userData;
+    }
+
+    public RobotsRules getRules(String siteUrl) {
+        String host = CrawlScheduler.getHost(siteUrl);
+        CachedRules cachedRules = cache.get(host);
+        if (cachedRules != null && cachedRules.expiresAt().isAfter(Instant.now())) {
+            return cachedRules.rules();
+        }
+        RobotsRules rules = load(siteUrl);
+        cache.put(host, new CachedRules(rules, Instant.now().plus(TIME_TO_LIVE)));
+        return rules;
+    }
+
+    private RobotsRules load(String siteUrl) {
+        try {
+            URI uri = URI.create(siteUrl);
+            String robotsUrl = uri.getScheme() + "://" + uri.getRawAuthority() + "/robots.txt";
+            FetchResult fetchResult = pageFetcher.fetch(robotsUrl);
+            if (fetchResult.isError()) {
+                logger.info("Файл " + robotsUrl + " недоступен. Статус: " + fetchResult.statusCode());
+                return RobotsRules.allowAll();
+            }
+            return RobotsRules.parse(new String(fetchResult.body(), StandardCharsets.UTF_8), userData.getUserAgent());
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.error("Ошибка загрузки robots.txt для " + siteUrl + ": " + ex.getMessage());
+            return RobotsRules.allowAll();
+        }
+    }
+
+    private record CachedRules(RobotsRules rules, Instant expiresAt) {
+    }
+}
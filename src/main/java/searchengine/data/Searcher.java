@@ -1,10 +1,9 @@
 package searchengine.data;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import searchengine.dto.searching.RelevantPage;
 import searchengine.model.Index;
 import searchengine.model.Lemma;
@@ -20,15 +19,17 @@ import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class Searcher {
+    private static final float PAGE_RANK_WEIGHT = 0.2F;
     private final IndexRepository indexRepository;
     private final LemmaRepository lemmaRepository;
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
     private final Site SITE;
-    private Map<Integer, Float> absRelevanceMap;
+    @Getter
+    private int foundCount;
     private final Logger logger = LogManager.getLogger(getClass());
 
-    public ArrayList<RelevantPage> search(String query) {
+    public ArrayList<RelevantPage> search(String query, int maxResults) {
         String siteName = "";
         try {
             siteName = SITE.getName();
@@ -42,9 +43,10 @@ public class Searcher {
             Map<Integer, Integer> sortedLemmasMap = sortLemmasMap(excludeFrequentLemmasMap);
             Map<Integer, Float> absRelevanceMap = calculateAbsoluteRelevanceMap(sortedLemmasMap);
             Map<Integer, Float> relativeRelevanceMap = calculateRelativeRelevanceMap(absRelevanceMap);
+            foundCount = relativeRelevanceMap.size();
             ArrayList<String> searchedLemmas = new ArrayList<>(searchedLemmasMap.keySet());
-            Map<Integer, Float> sortedRelevanceMap = sortRelevanceMap(relativeRelevanceMap);
-            ArrayList<RelevantPage> relevantPages = getRelevantPages(sortedRelevanceMap, searchedLemmas);
+            Map<Integer, Float> sortedRelevanceMap = sortRelevanceMap(applyPageRankPrior(relativeRelevanceMap));
+            ArrayList<RelevantPage> relevantPages = getRelevantPages(sortedRelevanceMap, searchedLemmas, maxResults);
             logger.info("Сайт \"" + siteName + "\". Поиск завершён!");
             return relevantPages;
         } catch (Exception ex) {
@@ -90,25 +92,16 @@ public class Searcher {
     }
 
     private Map<Integer, Float> calculateAbsoluteRelevanceMap(Map<Integer, Integer> sortedLemmasMap) {
-        absRelevanceMap = new HashMap<>();
+        Map<Integer, Float> absRelevanceMap = new HashMap<>();
         for (Map.Entry<Integer, Integer> sortedLemmaEntry : sortedLemmasMap.entrySet()) {
             int lemmaId = sortedLemmaEntry.getKey();
-            List<Integer> pageIdList = indexRepository.findAllByLemmaId(lemmaId).stream().map(Index::getPageId).toList();
-            for (int pageId : pageIdList) {
-                getAbsoluteRelevance(lemmaId, pageId);
+            for (Index index : indexRepository.findAllByLemmaId(lemmaId)) {
+                absRelevanceMap.merge(index.getPageId(), index.getRank(), Float::sum);
             }
         }
         return absRelevanceMap;
     }
 
-    private void getAbsoluteRelevance(int lemmaId, int pageId) {
-        float absRelevance = indexRepository.findByLemmaIdAndPageId(lemmaId, pageId).getRank();
-        if (absRelevanceMap.containsKey(pageId)) {
-            absRelevance += absRelevanceMap.get(pageId);
-        }
-        absRelevanceMap.put(pageId, absRelevance);
-    }
-
     private Map<Integer, Float> calculateRelativeRelevanceMap(Map<Integer, Float> absRelevanceMap) {
         float maxAbsRel = Collections.max(absRelevanceMap.values());
         return absRelevanceMap
@@ -124,6 +117,23 @@ public class Searcher {
                 ));
     }
 
+    private Map<Integer, Float> applyPageRankPrior(Map<Integer, Float> relevanceMap) {
+        Map<Integer, Float> pageRanks = new HashMap<>();
+        for (Object[] pageRank : pageRepository.findPageRanks(relevanceMap.keySet())) {
+            pageRanks.put((Integer) pageRank[0], (Float) pageRank[1]);
+        }
+        double maxPrior = Math.log1p(pageRanks.values().stream().max(Float::compare).orElse(0F));
+        if (maxPrior <= 0) {
+            return relevanceMap;
+        }
+        Map<Integer, Float> scoreMap = new HashMap<>();
+        relevanceMap.forEach((pageId, relevance) -> {
+            double prior = Math.log1p(pageRanks.getOrDefault(pageId, 0F)) / maxPrior;
+            scoreMap.put(pageId, (float) ((1 - PAGE_RANK_WEIGHT) * relevance + PAGE_RANK_WEIGHT * prior));
+        });
+        return scoreMap;
+    }
+
     private Map<Integer, Float> sortRelevanceMap(Map<Integer, Float> lemmasMap) {
         return lemmasMap.entrySet().stream()
                 .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
@@ -137,13 +147,18 @@ public class Searcher {
                 ));
     }
 
-    private ArrayList<RelevantPage> getRelevantPages(Map<Integer, Float> relevanceMap, ArrayList<String> searchedLemmas) {
+    private ArrayList<RelevantPage> getRelevantPages(Map<Integer, Float> relevanceMap, ArrayList<String> searchedLemmas,
+                                                     int maxResults) {
         ArrayList<RelevantPage> relevantPages = new ArrayList<>();
         for (Map.Entry<Integer, Float> relevanceEntry : relevanceMap.entrySet()) {
+            if (relevantPages.size() >= maxResults) {
+                break;
+            }
             int pageId = relevanceEntry.getKey();
-            Page page = pageRepository.findById(pageId).orElse(new Page());
-            String html = page.getContent();
-            String snippet = new Lemmatizer().findMatches(html, searchedLemmas).toString();
+            Page page = pageRepository.findAllWithContentByIdIn(List.of(pageId)).stream().findFirst().orElse(new Page());
+            HtmlTextExtractor.ensureExtracted(page);
+            String text = page.getTitle() + "\n" + page.getBodyText();
+            String snippet = new Lemmatizer().findMatches(text, searchedLemmas).toString();
             snippet = snippet.substring(1, snippet.length() - 1);
             if (snippet.trim().equals("")) {
                 continue;
@@ -153,8 +168,7 @@ public class Searcher {
             String url = site.getUrl();
             String siteName = site.getName();
             String uri = page.getPath();
-            Document document = Jsoup.parse(html);
-            String title = document.select("title").text();
+            String title = page.getTitle();
             float relevance = relevanceEntry.getValue();
             relevantPages.add(new RelevantPage(url, siteName + "|pageId=" + pageId, uri, title, snippet, relevance));
         }
@@ -0,0 +1,34 @@
+package searchengine.data;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Блокировки сайтов для задач, которые переписывают страницы, леммы и
+ * индекс сайта: индексация сайта и повторный обход его страниц не
+ * выполняются одновременно. Блокировку может снять не тот поток, что её
+ * взял, поэтому она основана на семафоре.
+ */
+@Component
+public class SiteLocks {
+    private final Map<String, Semaphore> locks = new ConcurrentHashMap<>();
+
+    public void acquire(String siteUrl) {
+        getLock(siteUrl).acquireUninterruptibly();
+    }
+
+    public boolean tryAcquire(String siteUrl) {
+        return getLock(siteUrl).tryAcquire();
+    }
+
+    public void release(String siteUrl) {
+        getLock(siteUrl).release();
+    }
+
+    private Semaphore getLock(String siteUrl) {
+        return locks.computeIfAbsent(siteUrl, key -> new Semaphore(1));
+    }
+}
@@ -4,110 +4,336 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.UnsupportedMimeTypeException;
+import searchengine.config.Politeness;
 import searchengine.config.UserData;
 import searchengine.model.Page;
 import searchengine.model.Site;
-import searchengine.repositories.IndexRepository;
-import searchengine.repositories.LemmaRepository;
 import searchengine.repositories.PageRepository;
-import searchengine.repositories.SiteRepository;
 
 import java.io.IOException;
+import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.RecursiveTask;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
-
-import static java.lang.Thread.currentThread;
-import static java.lang.Thread.sleep;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RequiredArgsConstructor
-public class SiteMapCreator extends RecursiveTask<HashSet<Page>> {
-    private final IndexRepository indexRepository;
-    private final LemmaRepository lemmaRepository;
+public class SiteMapCreator {
     private final PageRepository pageRepository;
-    private final SiteRepository siteRepository;
     @Setter
     private Page page;
     @Setter
     private Site site;
     @Setter
     private UserData userData;
-    private Document document;
-    HashSet<Page> pagesHashSet = new HashSet<>();
-    private volatile AtomicBoolean isInterrupted = new AtomicBoolean(false);
+    @Setter
+    private CrawlFrontier frontier;
+    @Setter
+    private CrawlScheduler crawlScheduler;
+    @Setter
+    private PageFetcher pageFetcher;
+    @Setter
+    private Map<String, Page> knownPages = Map.of();
+    @Setter
+    private PageBatchWriter pageWriter;
+    @Setter
+    private UrlNormalizer urlNormalizer;
+    @Setter
+    private RobotsRules robotsRules = RobotsRules.allowAll();
+    @Setter
+    private List<String> sitemapUrls = List.of();
+    @Setter
+    private Duration maxDuration = Duration.ZERO;
+    @Setter
+    private BoilerplateFilter boilerplateFilter;
+    @Setter
+    private LinkGraph linkGraph;
+    @Setter
+    private ProgressTracker progressTracker;
+    private long deadlineNanos;
+    private final AtomicBoolean isOutOfTime = new AtomicBoolean(false);
+    private RevisitPolicy revisitPolicy;
+    private HtmlTextExtractor textExtractor;
+    private SitemapReader sitemapReader;
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final AtomicInteger disallowedLinksCount = new AtomicInteger();
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+    private Executor fetchExecutor;
+    private Executor parseExecutor;
+    @Setter
+    private CancellationToken cancellationToken = new CancellationToken();
+    private final Logger logger = LogManager.getLogger(getClass());
 
-    public void setIsInterrupted(boolean isInterrupted) {
-        this.isInterrupted = new AtomicBoolean(isInterrupted);
+    public CompletableFuture<Void> crawl(Executor fetchExecutor, Executor parseExecutor) {
+        this.fetchExecutor = fetchExecutor;
+        this.parseExecutor = parseExecutor;
+        cancellationToken.onCancel(() -> result.cancel(false));
+        deadlineNanos = System.nanoTime() + maxDuration.toNanos();
+        revisitPolicy = new RevisitPolicy(userData.getRevisit());
+        pendingTasks.incrementAndGet();
+        for (int restored = frontier.pendingCount(); restored > 0; restored--) {
+            pendingTasks.incrementAndGet();
+            submitFetch();
+        }
+        offerLink(page.getPath(), 0, CrawlFrontier.DEFAULT_WEIGHT);
+        seedFromSitemaps();
+        completeTask();
+        return result;
     }
 
-    private final Logger logger = LogManager.getLogger(getClass());
+    public int getDisallowedLinksCount() {
+        return disallowedLinksCount.get();
+    }
 
-    @Override
-    protected HashSet<Page> compute() {
-        if (interruptChecking()) {
-            return null;
+    private void seedFromSitemaps() {
+        if (sitemapUrls.isEmpty()) {
+            return;
         }
-        collectPagesData();
-        List<SiteMapCreator> taskList = new ArrayList<>();
-        for (Page child : page.getChildren()) {
-            if (interruptChecking()) {
-                return null;
+        sitemapReader = new SitemapReader(pageFetcher, userData.getSeeding().getMaxSitemapUrls(),
+                userData.getSeeding().getMaxSitemapMegabytes() * 1024L * 1024L);
+        sitemapUrls.forEach(sitemapUrl -> submitSitemap(sitemapUrl, 0));
+    }
+
+    private void submitSitemap(String sitemapUrl, int depth) {
+        pendingTasks.incrementAndGet();
+        crawlScheduler.submit(sitemapUrl, () -> readSitemap(sitemapUrl, depth), fetchExecutor, this::completeTask);
+    }
+
+    private void readSitemap(String sitemapUrl, int depth) {
+        try {
+            List<String> childSitemaps = List.of();
+            try {
+                if (!cancellationToken.isCancelled()) {
+                    childSitemaps = sitemapReader.read(sitemapUrl, depth, (url, priority) -> offerLink(url, 1, priority));
+                }
+            } finally {
+                crawlScheduler.release(sitemapUrl);
             }
-            SiteMapCreator task = new SiteMapCreator(indexRepository, lemmaRepository, pageRepository, siteRepository);
-            task.setPage(child);
-            task.setSite(site);
-            task.setUserData(userData);
-            taskList.add(task);
-            task.fork();
-        }
-        for (SiteMapCreator task : taskList) {
-            if (interruptChecking()) {
-                return null;
+            logger.info("Карта сайта " + sitemapUrl + ": найдено адресов всего " + sitemapReader.getUrlsCount());
+            childSitemaps.forEach(childSitemap -> submitSitemap(childSitemap, depth + 1));
+        } finally {
+            completeTask();
+        }
+    }
+
+    private String offerLink(String url, int depth, double weight) {
+        if (cancellationToken.isCancelled()) {
+            return null;
+        }
+        String canonicalUrl = urlNormalizer.normalize(url);
+        if (canonicalUrl == null) {
+            return null;
+        }
+        if (!robotsRules.isAllowed(canonicalUrl)) {
+            disallowedLinksCount.incrementAndGet();
+            return null;
+        }
+        offer(canonicalUrl, depth, weight);
+        return canonicalUrl;
+    }
+
+    private boolean offer(String url, int depth, double weight) {
+        if (!frontier.offer(url, depth, weight)) {
+            return false;
+        }
+        pendingTasks.incrementAndGet();
+        submitFetch();
+        return true;
+    }
+
+    private void submitFetch() {
+        crawlScheduler.submit(page.getPath(), this::processNext, fetchExecutor, this::completeTask);
+    }
+
+    private void processNext() {
+        if (!pageWriter.hasCapacity() && !cancellationToken.isCancelled()) {
+            crawlScheduler.release(page.getPath());
+            pageWriter.whenCapacity(this::submitFetch);
+            return;
+        }
+        CrawlFrontier.Entry entry = isTimeBudgetExhausted() ? null : frontier.poll();
+        if (entry == null) {
+            crawlScheduler.release(page.getPath());
+            completeTask();
+            return;
+        }
+        fetchPage(entry, 0);
+    }
+
+    private void fetchPage(CrawlFrontier.Entry entry, int attempt) {
+        String url = entry.url();
+        Page childPage = new Page(url, site);
+        Page knownPage = knownPages.get(url);
+        FetchResult response = null;
+        Exception fetchException = null;
+        boolean isRetrying = false;
+        try {
+            if (!cancellationToken.isCancelled()) {
+                long startNanos = System.nanoTime();
+                try {
+                    response = pageFetcher.fetch(url, knownPage == null ? null : knownPage.getEtag(),
+                            knownPage == null ? null : knownPage.getLastModified(), getTimeout(attempt));
+                } catch (Exception ex) {
+                    fetchException = ex;
+                }
+                isRetrying = reportFetchOutcome(response, fetchException, System.nanoTime() - startNanos)
+                        && scheduleRetry(entry, attempt, response);
             }
-            pagesHashSet.addAll(task.join());
+        } finally {
+            crawlScheduler.release(page.getPath());
+        }
+        if (isRetrying) {
+            completeTask();
+            return;
+        }
+        if (fetchException != null) {
+            catchException(fetchException, childPage);
+        }
+        if (response == null) {
+            frontier.markDone(url);
+            completeTask();
+            return;
+        }
+        if (progressTracker != null) {
+            progressTracker.pageFetched();
         }
-        return pagesHashSet;
+        FetchResult fetchedResponse = response;
+        try {
+            parseExecutor.execute(() -> parsePage(url, entry.depth(), childPage, knownPage, fetchedResponse));
+        } catch (RejectedExecutionException ex) {
+            completeTask();
+        }
+    }
+
+    private boolean reportFetchOutcome(FetchResult response, Exception fetchException, long latencyNanos) {
+        boolean isTransient = response != null ? response.isTransientError() : isTransientException(fetchException);
+        if (isTransient) {
+            crawlScheduler.reportCongestion(page.getPath(), response == null ? Duration.ZERO : response.retryAfter());
+        } else if (response != null) {
+            crawlScheduler.reportSuccess(page.getPath(), latencyNanos);
+        }
+        return isTransient;
     }
 
-    private void collectPagesData() {
+    private boolean isTransientException(Exception ex) {
+        return ex instanceof HttpTimeoutException || ex instanceof ConnectException
+                || (ex != null && ex.getClass().equals(SocketTimeoutException.class));
+    }
+
+    private boolean scheduleRetry(CrawlFrontier.Entry entry, int attempt, FetchResult response) {
+        Politeness politeness = userData.getPoliteness();
+        if (cancellationToken.isCancelled() || attempt >= politeness.getMaxRetries()) {
+            logger.warn("Страница " + entry.url() + ": попытки загрузки исчерпаны (" + (attempt + 1) + ")");
+            return false;
+        }
+        long baseDelayMillis = politeness.getRetryBaseDelayMillis();
+        long delayMillis = (baseDelayMillis << attempt) + ThreadLocalRandom.current().nextLong(baseDelayMillis + 1);
+        Duration delay = Duration.ofMillis(delayMillis);
+        if (response != null && response.retryAfter().compareTo(delay) > 0) {
+            delay = response.retryAfter();
+        }
+        pendingTasks.incrementAndGet();
+        crawlScheduler.submitLater(page.getPath(), () -> fetchPage(entry, attempt + 1), fetchExecutor,
+                this::completeTask, delay);
+        return true;
+    }
+
+    private Duration getTimeout(int attempt) {
+        return pageFetcher.getTimeout().multipliedBy(1L << attempt);
+    }
+
+    private void parsePage(String url, int depth, Page childPage, Page knownPage, FetchResult response) {
+        String pageUrl = url;
+        boolean isQueued = false;
         try {
-            sleep(600);
-            getPageData(page);
-            Elements elements = document.select("body").select("a");
-            for (Element a : elements) {
-                if (interruptChecking()) {
+            String finalUrl = urlNormalizer.normalize(response.url());
+            if (!url.equals(finalUrl)) {
+                if (finalUrl != null && linkGraph != null) {
+                    linkGraph.addRedirect(url, finalUrl);
+                }
+                if (finalUrl == null || !frontier.redirect(url, finalUrl)) {
                     return;
                 }
-                String childUrl = a.absUrl("href");
-                if (isCorrectUrl(childUrl)) {
-                    childUrl = stripParams(childUrl);
-                    page.addChild(new Page(childUrl, site));
-                    pagesHashSet.add(page);
+                pageUrl = finalUrl;
+                childPage.setPath(finalUrl);
+                knownPage = knownPages.get(finalUrl);
+            }
+            HtmlTextExtractor.ExtractedPage extractedPage;
+            if (knownPage != null && response.isNotModified()) {
+                extractedPage = getTextExtractor().extract(
+                        Objects.requireNonNullElse(pageRepository.findHtmlById(knownPage.getId()), ""), response.url());
+            } else {
+                extractedPage = parse(childPage, response);
+                revisitPolicy.recordFirstVisit(childPage);
+                if (boilerplateFilter != null) {
+                    boilerplateFilter.observe(childPage.getBodyText());
+                }
+                if (knownPage == null || !childPage.getContentHash().equals(knownPage.getContentHash())) {
+                    pageWriter.add(childPage);
+                    isQueued = true;
                 }
             }
+            List<String> links = extractedPage.links();
+            List<String> outlinks = new ArrayList<>(links.size());
+            for (String link : links) {
+                if (cancellationToken.isCancelled()) {
+                    return;
+                }
+                String targetUrl = offerLink(link, depth + 1, CrawlFrontier.DEFAULT_WEIGHT);
+                if (targetUrl != null) {
+                    outlinks.add(targetUrl);
+                }
+            }
+            if (linkGraph != null) {
+                linkGraph.addLinks(pageUrl, outlinks);
+            }
         } catch (Exception ex) {
-            catchException(ex);
+            isQueued |= catchException(ex, childPage);
+        } finally {
+            if (!isQueued) {
+                frontier.markDone(pageUrl);
+            }
+            completeTask();
+        }
+    }
+
+    private boolean isTimeBudgetExhausted() {
+        if (maxDuration.isZero() || System.nanoTime() - deadlineNanos < 0) {
+            return false;
+        }
+        if (isOutOfTime.compareAndSet(false, true)) {
+            logger.info("Сайт " + page.getPath() + ": время обхода исчерпано, в очереди осталось адресов "
+                    + frontier.pendingCount());
+        }
+        return true;
+    }
+
+    private void completeTask() {
+        if (pendingTasks.decrementAndGet() == 0) {
+            result.complete(null);
         }
     }
 
-    private void catchException(Exception ex) {
+    private boolean catchException(Exception ex, Page page) {
         if (ex.getClass().equals(HttpStatusException.class)) {
             logger.error("Ошибка. Статус: " + ((HttpStatusException) ex).getStatusCode()
                     + ". Страница: " + ((HttpStatusException) ex).getUrl());
             page.setCode(((HttpStatusException) ex).getStatusCode());
-            pagesHashSet.add(page);
-        } else if (ex.getClass().equals(SocketTimeoutException.class)) {
+            pageWriter.add(page);
+            return true;
+        } else if (ex.getClass().equals(SocketTimeoutException.class) || ex instanceof HttpTimeoutException) {
             logger.error("Время ожидания вышло! Страница: " + page.getPath());
         } else if (ex.getClass().equals(InterruptedException.class)) {
             logger.error("Произошло прерывание потока для обхода страниц сайта");
@@ -116,41 +342,44 @@ public class SiteMapCreator extends RecursiveTask<HashSet<Page>> {
         } else {
             logger.error("Ошибка: " + ex.getMessage());
         }
+        return false;
     }
 
     public Page getPageData(Page page) throws IOException {
-        Connection.Response response = Jsoup.connect(page.getPath())
-                .timeout(3000)
-                .userAgent(userData.getUserAgent())
-                .referrer(userData.getReferrer())
-                .execute();
-        document = response.parse();
-        page.setCode(response.statusCode());
-        page.setContent(document.html());
+        parse(page, pageFetcher.fetch(page.getPath()));
+        new RevisitPolicy(userData.getRevisit()).recordFirstVisit(page);
         return page;
     }
 
-    private boolean interruptChecking() {
-        if (isInterrupted.get()) {
-            currentThread().interrupt();
-            return true;
-        }
-        return false;
+    public Page getPageData(Page page, FetchResult fetchResult) throws IOException {
+        parse(page, fetchResult);
+        return page;
     }
 
-    private String stripParams(String url) {
-        return url.replaceAll("\\?.+", "");
+    private HtmlTextExtractor getTextExtractor() {
+        if (textExtractor == null) {
+            textExtractor = HtmlTextExtractor.of(userData.getHtmlParser());
+        }
+        return textExtractor;
     }
 
-    private boolean isCorrectUrl(String url) {
-        Pattern patternRoot = Pattern.compile("^" + page.getPath());
-        Pattern patternNotFile = Pattern.compile("(\\S+(\\.(?i)(jpg|png|gif|bmp|pdf))$)");
-        Pattern patternNotAnchor = Pattern.compile("#([\\w\\-]+)?$");
-        Pattern patternNotParam = Pattern.compile(".*\\?.+");
-        return patternRoot.matcher(url).lookingAt()
-                && !patternNotFile.matcher(url).find()
-                && !patternNotAnchor.matcher(url).find()
-                && !patternNotParam.matcher(url).find();
+    private HtmlTextExtractor.ExtractedPage parse(Page page, FetchResult fetchResult) throws IOException {
+        String url = fetchResult.url();
+        page.setCode(fetchResult.statusCode());
+        if (fetchResult.isError()) {
+            throw new HttpStatusException("HTTP error fetching URL", fetchResult.statusCode(), url);
+        }
+        if (!fetchResult.isHtml()) {
+            throw new UnsupportedMimeTypeException("Unhandled content type", fetchResult.contentType(), url);
+        }
+        HtmlTextExtractor.ExtractedPage extractedPage = getTextExtractor().extract(fetchResult.body(),
+                fetchResult.charset(), url);
+        page.setContent(extractedPage.html());
+        page.setTitle(extractedPage.title());
+        page.setBodyText(extractedPage.bodyText());
+        page.setEtag(fetchResult.etag());
+        page.setLastModified(fetchResult.lastModified());
+        page.setContentHash(fetchResult.contentHash());
+        return extractedPage;
     }
-
-}
\ No newline at end of file
+}
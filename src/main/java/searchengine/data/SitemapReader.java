@@ -0,0 +1,122 @@
+package searchengine.data;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Потоково читает sitemap.xml и индексы карт сайта (в том числе сжатые
+ * gzip) прямо из ответа сервера и передаёт найденные адреса страниц
+ * обработчику. Объём распакованного файла ограничен, чтобы большая или
+ * сжатая с подвохом карта не заняла память и время обхода. За один
+ * вызов читается один файл: вложенные карты возвращаются вызывающему,
+ * который загружает их через планировщик запросов.
+ */
+public class SitemapReader {
+    private static final int MAX_DEPTH = 3;
+    private final PageFetcher pageFetcher;
+    private final int maxUrls;
+    private final long maxBytes;
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+    private final AtomicInteger urlsCount = new AtomicInteger();
+    private final Logger logger = LogManager.getLogger(getClass());
+
+    public SitemapReader(PageFetcher pageFetcher, int maxUrls, long maxBytes) {
+        this.pageFetcher = pageFetcher;
+        this.maxUrls = maxUrls;
+        this.maxBytes = maxBytes;
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public List<String> read(String sitemapUrl, int depth, BiConsumer<String, Double> urlConsumer) {
+        if (depth > MAX_DEPTH || urlsCount.get() >= maxUrls) {
+            return List.of();
+        }
+        List<String> childSitemaps;
+        try (FetchStream fetchStream = pageFetcher.fetchStream(sitemapUrl)) {
+            if (fetchStream.isError()) {
+                logger.info("Карта сайта " + sitemapUrl + " недоступна. Статус: " + fetchStream.statusCode());
+                return List.of();
+            }
+            try (InputStream inputStream = openBody(fetchStream.body())) {
+                childSitemaps = parse(inputStream, urlConsumer);
+            }
+        } catch (IOException | XMLStreamException ex) {
+            logger.error("Ошибка чтения карты сайта " + sitemapUrl + ": " + ex.getMessage());
+            return List.of();
+        }
+        return depth < MAX_DEPTH ? childSitemaps : List.of();
+    }
+
+    public int getUrlsCount() {
+        return urlsCount.get();
+    }
+
+    InputStream openBody(InputStream body) throws IOException {
+        BufferedInputStream inputStream = new BufferedInputStream(body);
+        inputStream.mark(2);
+        boolean isGzip = inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+        inputStream.reset();
+        return new LimitedInputStream(isGzip ? new GZIPInputStream(inputStream) : inputStream, maxBytes,
+                "Карта сайта превышает допустимый размер");
+    }
+
+    List<String> parse(InputStream inputStream, BiConsumer<String, Double> urlConsumer) throws XMLStreamException {
+        List<String> childSitemaps = new ArrayList<>();
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+        try {
+            boolean inSitemap = false;
+            String location = null;
+            double priority = CrawlFrontier.DEFAULT_WEIGHT;
+            while (reader.hasNext() && urlsCount.get() < maxUrls) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (name.equals("sitemap")) {
+                        inSitemap = true;
+                    } else if (name.equals("loc")) {
+                        location = reader.getElementText().trim();
+                    } else if (name.equals("priority")) {
+                        priority = parsePriority(reader.getElementText());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && location != null) {
+                    String name = reader.getLocalName();
+                    if (name.equals("sitemap")) {
+                        childSitemaps.add(location);
+                        inSitemap = false;
+                        location = null;
+                    } else if (name.equals("url") && !inSitemap) {
+                        urlsCount.incrementAndGet();
+                        urlConsumer.accept(location, priority);
+                        location = null;
+                        priority = CrawlFrontier.DEFAULT_WEIGHT;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return childSitemaps;
+    }
+
+    private double parsePriority(String value) {
+        try {
+            return Math.max(0.0, Math.min(1.0, Double.parseDouble(value.trim())));
+        } catch (NumberFormatException ex) {
+            return CrawlFrontier.DEFAULT_WEIGHT;
+        }
+    }
+}
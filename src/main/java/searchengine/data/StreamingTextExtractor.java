@@ -0,0 +1,336 @@
+package searchengine.data;
+
+import org.jsoup.internal.StringUtil;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.Tag;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Извлечение текста страницы за один проход по HTML без построения
+ * дерева документа. Теги разбираются последовательно, текст между ними
+ * собирается в блоки по тем же правилам, что и у {@link JsoupTextExtractor}:
+ * границы блочных элементов и br, пропуск nav, footer, aside и служебных
+ * элементов. Заметно меньше нагружает память при массовом обходе.
+ */
+public class StreamingTextExtractor implements HtmlTextExtractor {
+    private static final Set<String> RAW_TEXT_TAGS = Set.of("script", "style", "title", "textarea", "xmp",
+            "iframe", "noembed", "noframes");
+    private static final Set<String> HEAD_TAGS = Set.of("base", "basefont", "bgsound", "link", "meta", "title",
+            "noscript", "script", "style", "template", "head", "html");
+    private static final int CHARSET_SNIFF_BYTES = 5120;
+
+    @Override
+    public ExtractedPage extract(byte[] body, String charset, String url) {
+        String html = new String(body, getCharset(charset, body));
+        if (html.startsWith("\uFEFF")) {
+            html = html.substring(1);
+        }
+        return extract(html, url);
+    }
+
+    @Override
+    public ExtractedPage extract(String html, String url) {
+        Extraction extraction = new Extraction(url);
+        int length = html.length();
+        int position = 0;
+        while (position < length) {
+            int tagStart = html.indexOf('<', position);
+            if (tagStart < 0) {
+                extraction.text(html.substring(position));
+                break;
+            }
+            if (tagStart > position) {
+                extraction.text(html.substring(position, tagStart));
+            }
+            position = readMarkup(html, tagStart, extraction);
+        }
+        return extraction.finish(html);
+    }
+
+    private int readMarkup(String html, int start, Extraction extraction) {
+        int length = html.length();
+        if (html.startsWith("<!--", start)) {
+            int end = html.indexOf("-->", start + 4);
+            return end < 0 ? length : end + 3;
+        }
+        char next = start + 1 < length ? html.charAt(start + 1) : ' ';
+        if (next == '!' || next == '?') {
+            return skipTo(html, start, '>');
+        }
+        boolean isEndTag = next == '/';
+        int nameStart = isEndTag ? start + 2 : start + 1;
+        if (nameStart >= length || !Character.isLetter(html.charAt(nameStart))) {
+            if (isEndTag) {
+                return skipTo(html, start, '>');
+            }
+            extraction.text("<");
+            return start + 1;
+        }
+        int nameEnd = nameStart;
+        while (nameEnd < length && !isTagNameEnd(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+        if (isEndTag) {
+            extraction.endTag(name);
+            return skipTo(html, nameEnd, '>');
+        }
+        return readStartTag(html, name, nameEnd, extraction);
+    }
+
+    private int readStartTag(String html, String name, int position, Extraction extraction) {
+        int length = html.length();
+        String href = null;
+        boolean isSelfClosing = false;
+        while (position < length) {
+            char c = html.charAt(position);
+            if (c == '>') {
+                position++;
+                break;
+            }
+            if (c == '/' || Character.isWhitespace(c)) {
+                isSelfClosing = c == '/';
+                position++;
+                continue;
+            }
+            int attributeStart = position;
+            while (position < length && !isAttributeNameEnd(html.charAt(position))) {
+                position++;
+            }
+            String attribute = html.substring(attributeStart, position);
+            while (position < length && Character.isWhitespace(html.charAt(position))) {
+                position++;
+            }
+            String value = "";
+            if (position < length && html.charAt(position) == '=') {
+                position++;
+                while (position < length && Character.isWhitespace(html.charAt(position))) {
+                    position++;
+                }
+                int valueStart;
+                if (position < length && (html.charAt(position) == '"' || html.charAt(position) == '\'')) {
+                    char quote = html.charAt(position);
+                    valueStart = position + 1;
+                    position = html.indexOf(quote, valueStart);
+                    if (position < 0) {
+                        position = length;
+                    }
+                    value = html.substring(valueStart, position);
+                    position = Math.min(length, position + 1);
+                } else {
+                    valueStart = position;
+                    while (position < length && html.charAt(position) != '>'
+                            && !Character.isWhitespace(html.charAt(position))) {
+                        position++;
+                    }
+                    value = html.substring(valueStart, position);
+                }
+            }
+            if (href == null && attribute.equalsIgnoreCase("href")) {
+                href = Parser.unescapeEntities(value, true).trim();
+            }
+            isSelfClosing = false;
+        }
+        extraction.startTag(name, href, isSelfClosing);
+        if (!RAW_TEXT_TAGS.contains(name) || isSelfClosing) {
+            return position;
+        }
+        int end = indexOfEndTag(html, name, position);
+        if (name.equals("title")) {
+            extraction.title(html.substring(position, end));
+        } else if (name.equals("textarea")) {
+            extraction.text(html.substring(position, end));
+        }
+        extraction.endTag(name);
+        return end < length ? skipTo(html, end, '>') : length;
+    }
+
+    private static int indexOfEndTag(String html, String name, int from) {
+        int length = html.length();
+        int position = from;
+        while ((position = html.indexOf("</", position)) >= 0) {
+            int nameEnd = position + 2 + name.length();
+            if (html.regionMatches(true, position + 2, name, 0, name.length())
+                    && (nameEnd >= length || isTagNameEnd(html.charAt(nameEnd)))) {
+                return position;
+            }
+            position += 2;
+        }
+        return length;
+    }
+
+    private static int skipTo(String html, int from, char c) {
+        int end = html.indexOf(c, from);
+        return end < 0 ? html.length() : end + 1;
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return c == '=' || c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    private static Charset getCharset(String charset, byte[] body) {
+        String charsetName = charset != null ? charset : sniffCharset(body);
+        try {
+            return charsetName == null ? StandardCharsets.UTF_8 : Charset.forName(charsetName);
+        } catch (IllegalArgumentException ex) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static String sniffCharset(byte[] body) {
+        if (body.length >= 3 && body[0] == (byte) 0xEF && body[1] == (byte) 0xBB && body[2] == (byte) 0xBF) {
+            return "UTF-8";
+        }
+        String head = new String(body, 0, Math.min(body.length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1)
+                .toLowerCase(Locale.ROOT);
+        int meta = head.indexOf("<meta");
+        while (meta >= 0) {
+            int metaEnd = head.indexOf('>', meta);
+            String tag = head.substring(meta, metaEnd < 0 ? head.length() : metaEnd);
+            int charsetIndex = tag.indexOf("charset=");
+            if (charsetIndex >= 0) {
+                int valueStart = charsetIndex + "charset=".length();
+                while (valueStart < tag.length() && (tag.charAt(valueStart) == '"' || tag.charAt(valueStart) == '\'')) {
+                    valueStart++;
+                }
+                int valueEnd = valueStart;
+                while (valueEnd < tag.length() && "\"'; />".indexOf(tag.charAt(valueEnd)) < 0) {
+                    valueEnd++;
+                }
+                if (valueEnd > valueStart) {
+                    return tag.substring(valueStart, valueEnd);
+                }
+            }
+            meta = head.indexOf("<meta", meta + 5);
+        }
+        return null;
+    }
+
+    private static class Extraction {
+        private final StringJoiner blocks = new StringJoiner("\n");
+        private final StringBuilder block = new StringBuilder();
+        private final StringJoiner titles = new StringJoiner(" ");
+        private final List<String> links = new ArrayList<>();
+        private String baseUrl;
+        private boolean isBaseUrlSet;
+        private boolean isInHead;
+        private String skippedTag;
+        private int skippedDepth;
+
+        private Extraction(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private void startTag(String name, String href, boolean isSelfClosing) {
+            if (name.equals("head")) {
+                isInHead = true;
+            } else if (isInHead && !HEAD_TAGS.contains(name)) {
+                isInHead = false;
+            }
+            if (href != null) {
+                if (name.equals("base") && !isBaseUrlSet) {
+                    baseUrl = resolve(baseUrl, href);
+                    isBaseUrlSet = true;
+                } else if (name.equals("a") && !isInHead) {
+                    links.add(resolve(baseUrl, href));
+                }
+            }
+            boolean isVoid = isSelfClosing || Tag.valueOf(name).isSelfClosing();
+            if (skippedDepth > 0) {
+                if (name.equals(skippedTag) && !isVoid) {
+                    skippedDepth++;
+                }
+                return;
+            }
+            if (JsoupTextExtractor.SKIPPED_TAGS.contains(name)) {
+                flush();
+                if (!isVoid) {
+                    skippedTag = name;
+                    skippedDepth = 1;
+                }
+                return;
+            }
+            if (name.equals("br") || Tag.valueOf(name).isBlock()) {
+                flush();
+            }
+        }
+
+        private void endTag(String name) {
+            if (skippedDepth > 0) {
+                if (name.equals(skippedTag)) {
+                    skippedDepth--;
+                }
+                return;
+            }
+            if (name.equals("head")) {
+                isInHead = false;
+            } else if (name.equals("br") || Tag.valueOf(name).isBlock()) {
+                flush();
+            }
+        }
+
+        private void text(String rawText) {
+            if (skippedDepth > 0) {
+                return;
+            }
+            if (isInHead) {
+                if (rawText.isBlank()) {
+                    return;
+                }
+                isInHead = false;
+            }
+            block.append(StringUtil.normaliseWhitespace(Parser.unescapeEntities(rawText, false)));
+        }
+
+        private void title(String rawText) {
+            String title = Parser.unescapeEntities(rawText, false).trim();
+            if (!title.isEmpty()) {
+                titles.add(title);
+            }
+        }
+
+        private void flush() {
+            String value = block.toString().trim();
+            if (!value.isEmpty()) {
+                blocks.add(value);
+            }
+            block.setLength(0);
+        }
+
+        private ExtractedPage finish(String html) {
+            flush();
+            return new ExtractedPage(html, titles.toString(), blocks.toString(), links);
+        }
+
+        private static String resolve(String baseUrl, String href) {
+            try {
+                URI base = URI.create(baseUrl);
+                if (base.getRawPath() == null || base.getRawPath().isEmpty()) {
+                    base = base.resolve("/");
+                }
+                if (href.isEmpty() || href.startsWith("?")) {
+                    String url = base.toString().replaceFirst("#.*$", "");
+                    if (!href.isEmpty()) {
+                        url = url.replaceFirst("\\?.*$", "");
+                    }
+                    return URI.create(url + href).toString();
+                }
+                return base.resolve(href).toString();
+            } catch (IllegalArgumentException ex) {
+                return "";
+            }
+        }
+    }
+}
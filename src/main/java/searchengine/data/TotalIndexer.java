@@ -1,19 +1,19 @@
 package searchengine.data;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import searchengine.config.CrawlBudget;
 import searchengine.config.Site;
 import searchengine.config.UserData;
+import searchengine.dto.indexing.IndexingMode;
 import searchengine.model.*;
 import searchengine.repositories.*;
 
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.*;
 
 @RequiredArgsConstructor
 public class TotalIndexer extends Thread {
@@ -24,38 +24,69 @@ public class TotalIndexer extends Thread {
     private final SiteRepository siteRepository;
     private final List<Site> yamlSites;
     private final UserData userData;
-    ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-    private volatile boolean isStopped = false;
+    private final CrawlScheduler crawlScheduler;
+    private final PageFetcher pageFetcher;
+    private final RobotsTxtCache robotsTxtCache;
+    private final LinkGraphStore linkGraphStore;
+    private final IndexingScheduler indexingScheduler;
+    private final IndexStore indexStore;
+    private final IndexingProgress indexingProgress;
+    private final SiteLocks siteLocks;
+    @Setter
+    private IndexingMode mode = IndexingMode.FULL;
+    @Setter
+    private CrawlBudget defaultBudget = new CrawlBudget();
+    private final CancellationToken cancellationToken = new CancellationToken();
+    private final List<CompletableFuture<Void>> siteCompletions = new CopyOnWriteArrayList<>();
     private final Logger logger = LogManager.getLogger(getClass());
 
-    public synchronized void setIsStopped(boolean isStopped) {
-        this.isStopped = isStopped;
-        if (this.isStopped) {
-            try {
-                executor.shutdownNow();
-                currentThread().interrupt();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+    public void stopIndexing() {
+        cancellationToken.cancel();
+    }
+
+    private void awaitSites() {
+        try {
+            CompletableFuture.allOf(siteCompletions.toArray(CompletableFuture[]::new)).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            logger.error(ex.getMessage());
         }
     }
 
+    private void markStoppedSites() {
+        String message = "Индексация остановлена пользователем";
+        siteRepository.findAll().forEach(site -> {
+            if (site.getStatus() == Status.INDEXING) {
+                site.setLast_error(message);
+                site.setStatus(Status.FAILED);
+                new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
+                        new CancellationToken()).saveSite(site);
+            }
+        });
+    }
+
     @Override
     public void run() {
-        if (!runTotalIndexing()) {
+        boolean isStarted = runTotalIndexing();
+        awaitSites();
+        if (isStarted) {
+            if (cancellationToken.isCancelled()) {
+                markStoppedSites();
+            }
+        } else {
             String message = "Индексация остановлена пользователем";
             logger.info(message);
             siteRepository.findAll().forEach(site -> {
                 site.setLast_error(message);
                 site.setStatus(Status.FAILED);
                 new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                        new AtomicBoolean(false)).saveSite(site);
+                        new CancellationToken()).saveSite(site);
             });
         }
     }
 
     private boolean runTotalIndexing() {
-        isStopped = false;
         if (!updatingSites()) {
             return false;
         }
@@ -69,32 +100,50 @@ public class TotalIndexer extends Thread {
 
     private boolean runSiteIndexing(Site siteItem) {
         String url = siteItem.getUrl();
-        String siteName = siteItem.getName();
-        searchengine.model.Site site = siteRepository.findByUrl(url);
+        siteLocks.acquire(url);
+        CompletableFuture<Void> completion = null;
         try {
-            boolean isDeletedOk = executor.submit(() -> deleteIndexingSiteInfo(site)).get();
-            if (!isDeletedOk) {
-                return false;
+            completion = startSiteIndexing(siteItem);
+        } finally {
+            if (completion == null) {
+                siteLocks.release(url);
             }
-        } catch (InterruptedException | ExecutionException e) {
-            return false;
         }
-        if (isStopped) {
+        if (completion == null) {
             return false;
         }
+        siteCompletions.add(completion.whenComplete((result, ex) -> siteLocks.release(url)));
+        return true;
+    }
+
+    private CompletableFuture<Void> startSiteIndexing(Site siteItem) {
+        String url = siteItem.getUrl();
+        String siteName = siteItem.getName();
+        searchengine.model.Site site = siteRepository.findByUrl(url);
+        if (mode == IndexingMode.FULL && !deleteIndexingSiteInfo(site)) {
+            return null;
+        }
+        if (cancellationToken.isCancelled()) {
+            return null;
+        }
         OneSiteIndexer oneSiteIndexer = new OneSiteIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                new AtomicBoolean(false));
+                cancellationToken);
         oneSiteIndexer.setROOT_URL(url);
         oneSiteIndexer.setROOT_URL_NAME(siteName);
         oneSiteIndexer.setUserData(userData);
-        if (isStopped) {
-            oneSiteIndexer.setIsInterrupted(true);
-            return false;
-        }
-        int coresCount = Runtime.getRuntime().availableProcessors();
-        executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(coresCount);
-        executor.execute(oneSiteIndexer);
-        return true;
+        oneSiteIndexer.setCrawlScheduler(crawlScheduler);
+        oneSiteIndexer.setPageFetcher(pageFetcher);
+        oneSiteIndexer.setRobotsTxtCache(robotsTxtCache);
+        oneSiteIndexer.setLinkGraphStore(linkGraphStore);
+        oneSiteIndexer.setIndexingScheduler(indexingScheduler);
+        oneSiteIndexer.setIndexStore(indexStore);
+        oneSiteIndexer.setIndexingProgress(indexingProgress);
+        oneSiteIndexer.setMode(mode);
+        oneSiteIndexer.setBudget(siteItem.getBudget() != null ? siteItem.getBudget() : defaultBudget);
+        if (cancellationToken.isCancelled()) {
+            return null;
+        }
+        return indexingScheduler.submitSite(oneSiteIndexer);
     }
 
     private boolean updatingSites() {
@@ -107,7 +156,7 @@ public class TotalIndexer extends Thread {
     }
 
     private boolean deleteIndexingSiteInfo(searchengine.model.Site site) {
-        if ((isStopped) || !(deleteSiteInfo(site))) {
+        if (cancellationToken.isCancelled() || !(deleteSiteInfo(site))) {
             return false;
         }
         logger.info("Удаление информации из БД об индексируемом сайте \"" + site.getName() + "\" закончено!");
@@ -119,19 +168,20 @@ public class TotalIndexer extends Thread {
         lemmaRepository.deleteAll(lemmaListToDelete);
         String infoPrefix = "Сайт \"" + site.getName() + "\": ";
         logger.info(infoPrefix + "удаление лемм завершено!");
-        if (isStopped) {
+        if (cancellationToken.isCancelled()) {
             return false;
         }
         List<Page> pageListToDelete = pageRepository.findBySitePage(site);
         pageRepository.deleteAll(pageListToDelete);
         logger.info(infoPrefix + "удаление страниц завершено!");
-        if (isStopped) {
+        if (cancellationToken.isCancelled()) {
             return false;
         }
         List<Integer> pageIdListToDelete = pageListToDelete.stream().map(Page::getId).toList();
         List<Index> indexListToDelete = indexRepository.findAllByPageIdIn(pageIdListToDelete);
         indexRepository.deleteAll(indexListToDelete);
         logger.info(infoPrefix + "удаление индексов завершено!");
+        linkGraphStore.deleteLinks(site);
         return true;
     }
 
@@ -139,7 +189,7 @@ public class TotalIndexer extends Thread {
         if (!addingNewSites()) {
             return false;
         }
-        if (isStopped) {
+        if (cancellationToken.isCancelled()) {
             return false;
         }
         return deletingSites();
@@ -149,7 +199,7 @@ public class TotalIndexer extends Thread {
         Iterable<searchengine.model.Site> sitesInDB = siteRepository.findAll();
         for (Site yamlSite : yamlSites) {
             processYamlSite(sitesInDB, yamlSite);
-            if (isStopped) {
+            if (cancellationToken.isCancelled()) {
                 return false;
             }
         }
@@ -166,7 +216,7 @@ public class TotalIndexer extends Thread {
         }
         searchengine.model.Site site = new searchengine.model.Site(Status.INDEXING, new Date(), yamlSite.getUrl(), yamlSite.getName());
         new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository,
-                new AtomicBoolean(false)).saveSite(site);
+                new CancellationToken()).saveSite(site);
         if (!isPresent) {
             logger.info("Добавлен новый сайт \"" + yamlSite.getUrl() + "\" в БД!");
         }
@@ -176,7 +226,7 @@ public class TotalIndexer extends Thread {
         Iterable<searchengine.model.Site> dbSites = siteRepository.findAll();
         for (searchengine.model.Site dbSite : dbSites) {
             processDBSite(dbSite);
-            if (isStopped) {
+            if (cancellationToken.isCancelled()) {
                 return false;
             }
         }
@@ -0,0 +1,167 @@
+package searchengine.data;
+
+import searchengine.config.UrlFilter;
+
+import java.util.*;
+
+/**
+ * Приводит адреса ссылок к каноническому виду одного сайта и отсекает
+ * лишние: схема и хост (с «www.» и без) сводятся к корню сайта, отбрасываются
+ * фрагмент, конечный слеш и параметры отслеживания. Все фильтры готовятся
+ * один раз при создании, поэтому на каждую ссылку не строится ни одного
+ * регулярного выражения.
+ */
+public class UrlNormalizer {
+    private final String origin;
+    private final String hostKey;
+    private final String rootPath;
+    private final boolean keepQueryParameters;
+    private final Set<String> trackingParameters = new HashSet<>();
+    private final List<String> trackingPrefixes = new ArrayList<>();
+    private final Set<String> excludedExtensions = new HashSet<>();
+
+    public UrlNormalizer(String rootUrl, UrlFilter urlFilter) {
+        String root = rootUrl.trim();
+        int schemeEnd = root.indexOf("://");
+        if (schemeEnd <= 0) {
+            throw new IllegalArgumentException("Некорректный адрес сайта: " + rootUrl);
+        }
+        String scheme = root.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        int authorityEnd = indexOfPathStart(root, schemeEnd + 3);
+        String host = getHost(scheme, root.substring(schemeEnd + 3, authorityEnd));
+        this.origin = scheme + "://" + host;
+        this.hostKey = host.startsWith("www.") ? host.substring(4) : host;
+        int queryStart = root.indexOf('?', authorityEnd);
+        this.rootPath = normalizePath(queryStart < 0 ? root.substring(authorityEnd) : root.substring(authorityEnd, queryStart));
+        this.keepQueryParameters = urlFilter.isKeepQueryParameters();
+        for (String parameter : urlFilter.getTrackingParameters()) {
+            String name = parameter.trim().toLowerCase(Locale.ROOT);
+            if (name.endsWith("*")) {
+                trackingPrefixes.add(name.substring(0, name.length() - 1));
+            } else if (!name.isEmpty()) {
+                trackingParameters.add(name);
+            }
+        }
+        for (String extension : urlFilter.getExcludedExtensions()) {
+            excludedExtensions.add(extension.trim().toLowerCase(Locale.ROOT).replaceFirst("^\\.", ""));
+        }
+    }
+
+    /**
+     * Возвращает канонический адрес или {@code null}, если ссылка ведёт
+     * за пределы сайта или не является страницей.
+     */
+    public String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String value = url.trim();
+        int fragmentStart = value.indexOf('#');
+        if (fragmentStart >= 0) {
+            value = value.substring(0, fragmentStart);
+        }
+        int schemeEnd = value.indexOf("://");
+        if (schemeEnd <= 0) {
+            return null;
+        }
+        String scheme = value.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return null;
+        }
+        int authorityEnd = indexOfPathStart(value, schemeEnd + 3);
+        String host = getHost(scheme, value.substring(schemeEnd + 3, authorityEnd));
+        if (!hostKey.equals(host.startsWith("www.") ? host.substring(4) : host)) {
+            return null;
+        }
+        int queryStart = value.indexOf('?', authorityEnd);
+        String path = normalizePath(queryStart < 0 ? value.substring(authorityEnd) : value.substring(authorityEnd, queryStart));
+        if (!isInsideRoot(path) || hasExcludedExtension(path)) {
+            return null;
+        }
+        String query = queryStart < 0 ? "" : normalizeQuery(value.substring(queryStart + 1));
+        return query.isEmpty() ? origin + path : origin + path + "?" + query;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String toPath(String canonicalUrl) {
+        return canonicalUrl.startsWith(origin) ? canonicalUrl.substring(origin.length()) : canonicalUrl;
+    }
+
+    public String toUrl(String path) {
+        return origin + path;
+    }
+
+    private boolean isInsideRoot(String path) {
+        return rootPath.equals("/") || path.equals(rootPath)
+                || (path.startsWith(rootPath) && path.charAt(rootPath.length()) == '/');
+    }
+
+    private boolean hasExcludedExtension(String path) {
+        int segmentStart = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= segmentStart || dot == path.length() - 1) {
+            return false;
+        }
+        return excludedExtensions.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private String normalizeQuery(String query) {
+        if (!keepQueryParameters || query.isEmpty()) {
+            return "";
+        }
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int equals = parameter.indexOf('=');
+            String name = (equals < 0 ? parameter : parameter.substring(0, equals)).toLowerCase(Locale.ROOT);
+            if (!isTrackingParameter(name)) {
+                parameters.add(parameter);
+            }
+        }
+        Collections.sort(parameters);
+        return String.join("&", parameters);
+    }
+
+    private boolean isTrackingParameter(String name) {
+        if (trackingParameters.contains(name)) {
+            return true;
+        }
+        for (String prefix : trackingPrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalizePath(String path) {
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end == 0 ? "/" : path.substring(0, end);
+    }
+
+    private static String getHost(String scheme, String authority) {
+        String host = authority.substring(authority.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+        if ((scheme.equals("http") && host.endsWith(":80")) || (scheme.equals("https") && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+        return host.endsWith(".") ? host.substring(0, host.length() - 1) : host;
+    }
+
+    private static int indexOfPathStart(String url, int from) {
+        for (int i = from; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+}
@@ -0,0 +1,12 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+@Data
+public class HostLimit {
+    private String host;
+    private int concurrencyLimit;
+    private int active;
+    private int queued;
+    private long intervalMillis;
+}
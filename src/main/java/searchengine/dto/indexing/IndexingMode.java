@@ -0,0 +1,7 @@
+package searchengine.dto.indexing;
+
+public enum IndexingMode {
+    FULL,
+    INCREMENTAL,
+    RESUME
+}
@@ -0,0 +1,11 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class IndexingProgressResponse {
+    private boolean result;
+    private List<SiteProgress> sites;
+}
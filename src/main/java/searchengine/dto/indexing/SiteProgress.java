@@ -0,0 +1,18 @@
+package searchengine.dto.indexing;
+
+import lombok.Data;
+
+@Data
+public class SiteProgress {
+    private String url;
+    private String name;
+    private String stage;
+    private long pagesFetched;
+    private long pagesSaved;
+    private long pagesIndexed;
+    private int crawlQueue;
+    private int indexQueue;
+    private long elapsedSeconds;
+    private double fetchedPerSecond;
+    private double indexedPerSecond;
+}
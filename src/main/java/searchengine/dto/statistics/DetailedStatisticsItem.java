@@ -1,6 +1,7 @@
 package searchengine.dto.statistics;
 
 import lombok.Data;
+import searchengine.dto.indexing.SiteProgress;
 import searchengine.model.Status;
 
 @Data
@@ -12,4 +13,5 @@ public class DetailedStatisticsItem {
     private String error;
     private int pages;
     private int lemmas;
+    private SiteProgress progress;
 }
\ No newline at end of file
@@ -11,7 +11,7 @@ import javax.persistence.*;
 @NoArgsConstructor(force = true)
 @RequiredArgsConstructor
 @Entity
-@Table(name = "`index`")
+@Table(name = "`index`", indexes = @javax.persistence.Index(columnList = "page_id, lemma_id"))
 public class Index {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -13,13 +13,13 @@ import java.util.Set;
 @NoArgsConstructor(force = true)
 @RequiredArgsConstructor
 @Entity
-@Table(name = "lemma")
+@Table(name = "lemma", uniqueConstraints = @UniqueConstraint(name = "uk_lemma_site", columnNames = {"lemma", "site_id"}))
 public class Lemma {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
     @NonNull
-    @Column(nullable = false)
+    @Column(nullable = false, columnDefinition = "varchar(255) character set utf8mb4 collate utf8mb4_bin not null")
     private String lemma;
     @NonNull
     @Column(nullable = false)
@@ -7,9 +7,9 @@ import lombok.Setter;
 import org.jetbrains.annotations.NotNull;
 
 import javax.persistence.*;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Getter
 @Setter
@@ -28,9 +28,45 @@ public class Page implements Comparable<Page> {
     @Column(nullable = false)
     private int code;
 
-    @NonNull
-    @Column(nullable = false, columnDefinition = "mediumtext")
-    private String content;
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "content_id")
+    private PageContent pageContent;
+
+    @Column(name = "title", columnDefinition = "text")
+    private String title;
+
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified")
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "simhash")
+    private Long simhash;
+
+    @Column(name = "duplicate_of")
+    private Integer duplicateOf;
+
+    @Column(name = "last_visit")
+    private Date lastVisit;
+
+    @Column(name = "next_visit")
+    private Date nextVisit;
+
+    @Column(name = "visits_count", columnDefinition = "int not null default 0")
+    private int visitsCount;
+
+    @Column(name = "changes_count", columnDefinition = "int not null default 0")
+    private int changesCount;
+
+    @Column(name = "observed_seconds", columnDefinition = "bigint not null default 0")
+    private long observedSeconds;
+
+    @Column(name = "page_rank", columnDefinition = "float not null default 0")
+    private float pageRank;
 
     @ManyToOne(cascade = CascadeType.REFRESH, fetch = FetchType.EAGER)
     @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false)
@@ -43,56 +79,33 @@ public class Page implements Comparable<Page> {
             inverseJoinColumns = @JoinColumn(name = "lemma_id", referencedColumnName = "id"))
     private Set<Lemma> lemmas = new HashSet<>();
 
-    @Transient
-    private volatile Page parent;
-
-    @Transient
-    private volatile CopyOnWriteArrayList<Page> children;
-
     public Page(@NotNull String path, Site sitePage) {
         this.path = path;
-        parent = null;
-        children = new CopyOnWriteArrayList<>();
         this.code = 200;
-        this.content = "";
         this.sitePage = sitePage;
     }
 
-    public synchronized void addChild(@NotNull Page node) {
-        Page root = getRootElement();
-        if (!root.isContainsUrl(node.getPath())) {
-            node.setParent(this);
-            children.add(node);
-        }
-    }
-
-    private boolean isContainsUrl(String url) {
-        if (this.path.equals(url)) {
-            return true;
-        }
-        for (Page child : children) {
-            if (child.isContainsUrl(url))
-                return true;
-        }
-        return false;
-    }
-
     @Override
     public int compareTo(@NotNull Page o) {
         return this.path.trim().compareTo(o.path.trim());
     }
 
-    public Page getRootElement() {
-        return parent == null ? this : parent.getRootElement();
+    public String getRawContent() {
+        return pageContent == null || pageContent.getHtml() == null ? "" : pageContent.getHtml();
     }
 
-    private void setParent(Page node) {
-        synchronized (this) {
-            this.parent = node;
-        }
+    public void setContent(String html) {
+        pageContent = new PageContent(html);
     }
 
-    public String getContent() {
-        return content.replace("'", "\\'");
+    public String getBodyText() {
+        return pageContent == null ? null : pageContent.getBodyText();
+    }
+
+    public void setBodyText(String bodyText) {
+        if (pageContent == null) {
+            pageContent = new PageContent("");
+        }
+        pageContent.setBodyText(bodyText);
     }
 }
\ No newline at end of file
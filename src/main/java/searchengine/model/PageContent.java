@@ -0,0 +1,30 @@
+package searchengine.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "page_content")
+public class PageContent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "html", columnDefinition = "mediumblob")
+    private String html;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "body_text", columnDefinition = "mediumblob")
+    private String bodyText;
+
+    public PageContent(String html) {
+        this.html = html;
+    }
+}
@@ -0,0 +1,29 @@
+package searchengine.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.*;
+
+@Data
+@NoArgsConstructor(force = true)
+@RequiredArgsConstructor
+@Entity
+@Table(name = "page_links", uniqueConstraints = @UniqueConstraint(name = "uk_page_links_page", columnNames = "page_id"),
+        indexes = @javax.persistence.Index(name = "idx_page_links_site", columnList = "site_id"))
+public class PageLinks {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+    @NonNull
+    @Column(name = "page_id", nullable = false)
+    private Integer pageId;
+    @NonNull
+    @Column(name = "site_id", nullable = false)
+    private Integer siteId;
+    @NonNull
+    @Column(name = "targets", nullable = false, columnDefinition = "mediumblob")
+    private byte[] targets;
+}
@@ -35,6 +35,9 @@ public class Site {
     @NonNull
     @Column(nullable = false)
     private String name;
+    @Nullable
+    @Column(name = "template_blocks", columnDefinition = "mediumtext")
+    private String templateBlocks;
     @OneToMany(mappedBy = "siteLemma", fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
     private Collection<Lemma> lemmas;
     @OneToMany(mappedBy = "sitePage", fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
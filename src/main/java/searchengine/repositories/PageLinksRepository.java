@@ -0,0 +1,20 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import searchengine.model.PageLinks;
+
+import javax.transaction.Transactional;
+import java.util.List;
+
+@Repository
+public interface PageLinksRepository extends CrudRepository<PageLinks, Integer> {
+    List<PageLinks> findAllBySiteId(int siteId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM PageLinks l WHERE l.siteId = :siteId")
+    void deleteAllBySiteId(int siteId);
+}
@@ -1,10 +1,16 @@
 package searchengine.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import searchengine.model.Page;
 import searchengine.model.Site;
 
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Repository
@@ -14,4 +20,39 @@ public interface PageRepository extends CrudRepository<Page, Integer> {
     Page findByPathAndSitePage(String path, Site site);
 
     List<Page> findBySitePage(Site site);
+
+    @Query(value = "SELECT p FROM Page p LEFT JOIN FETCH p.pageContent WHERE p.id IN :ids")
+    List<Page> findAllWithContentByIdIn(Collection<Integer> ids);
+
+    @Query(value = "SELECT c.html FROM Page p JOIN p.pageContent c WHERE p.id = :id")
+    String findHtmlById(int id);
+
+    @Query(value = "SELECT p.id, p.contentHash, p.simhash FROM Page p " +
+            "WHERE p.sitePage = :site AND p.simhash IS NOT NULL AND p.duplicateOf IS NULL")
+    List<Object[]> findFingerprintsBySite(Site site);
+
+    @Query(value = "SELECT p.id, p.path FROM Page p WHERE p.sitePage = :site AND p.code < 400")
+    List<Object[]> findIdsAndPathsBySite(Site site);
+
+    @Query(value = "SELECT p.id, p.pageRank FROM Page p WHERE p.id IN :ids")
+    List<Object[]> findPageRanks(Collection<Integer> ids);
+
+    @Query(value = "SELECT p.id FROM Page p WHERE p.sitePage = :site AND p.code < 400 AND p.duplicateOf IS NULL " +
+            "AND NOT EXISTS (SELECT i.id FROM Index i WHERE i.pageId = p.id)")
+    List<Integer> findNotIndexedPageIds(Site site);
+
+    @Query(value = "SELECT p.id FROM Page p WHERE p.nextVisit <= :now AND p.code < 400 " +
+            "AND p.sitePage.status <> searchengine.model.Status.INDEXING ORDER BY p.nextVisit")
+    List<Integer> findIdsDueForRevisit(Date now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Page p SET p.simhash = :simhash, p.duplicateOf = :duplicateOf WHERE p.id = :id")
+    void updateFingerprint(int id, Long simhash, Integer duplicateOf);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Page p SET p.lastVisit = :lastVisit, p.nextVisit = :nextVisit, p.visitsCount = :visitsCount, " +
+            "p.changesCount = :changesCount, p.observedSeconds = :observedSeconds WHERE p.id = :id")
+    void updateVisit(int id, Date lastVisit, Date nextVisit, int visitsCount, int changesCount, long observedSeconds);
 }
\ No newline at end of file
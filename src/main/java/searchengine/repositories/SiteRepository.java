@@ -1,12 +1,15 @@
 package searchengine.repositories;
 
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import searchengine.model.Site;
 import searchengine.model.Status;
 
+import javax.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Date;
 
 @Repository
 public interface SiteRepository extends CrudRepository<Site, Integer> {
@@ -16,4 +19,9 @@ public interface SiteRepository extends CrudRepository<Site, Integer> {
 
     @Query(value = "SELECT url FROM Site WHERE status = :status")
     ArrayList<String> findAllUrlByStatus(Status status);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Site s SET s.status_time = :statusTime WHERE s.id = :id AND s.status = :status")
+    void updateStatusTime(int id, Date statusTime, Status status);
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package searchengine.services;
 
+import searchengine.dto.indexing.HostLimitsResponse;
+import searchengine.dto.indexing.IndexingMode;
+import searchengine.dto.indexing.IndexingProgressResponse;
 import searchengine.dto.indexing.IndexingResponse;
 
 public interface IndexService {
-    IndexingResponse startIndexing();
+    IndexingResponse startIndexing(IndexingMode mode);
     IndexingResponse stopIndexing();
     IndexingResponse indexPage(String url);
+    HostLimitsResponse getHostLimits();
+    IndexingProgressResponse getIndexingProgress();
 }
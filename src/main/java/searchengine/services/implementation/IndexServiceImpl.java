@@ -8,9 +8,23 @@ import org.springframework.stereotype.Service;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
 import searchengine.config.UserData;
+import searchengine.data.BoilerplateFilter;
+import searchengine.data.CancellationToken;
+import searchengine.data.CrawlScheduler;
+import searchengine.data.IndexingProgress;
+import searchengine.data.IndexingScheduler;
+import searchengine.data.IndexStore;
+import searchengine.data.LinkGraphStore;
+import searchengine.data.PageFetcher;
 import searchengine.data.PagesIndexer;
+import searchengine.data.RobotsTxtCache;
+import searchengine.data.SiteLocks;
 import searchengine.data.SiteMapCreator;
 import searchengine.data.TotalIndexer;
+import searchengine.data.UrlNormalizer;
+import searchengine.dto.indexing.HostLimitsResponse;
+import searchengine.dto.indexing.IndexingMode;
+import searchengine.dto.indexing.IndexingProgressResponse;
 import searchengine.dto.indexing.IndexingResponse;
 import searchengine.model.Page;
 import searchengine.model.Status;
@@ -19,12 +33,12 @@ import searchengine.services.IndexService;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
@@ -36,6 +50,14 @@ public class IndexServiceImpl implements IndexService {
     private final SiteRepository siteRepository;
     private final SitesList sites;
     private final UserData userData;
+    private final CrawlScheduler crawlScheduler;
+    private final PageFetcher pageFetcher;
+    private final RobotsTxtCache robotsTxtCache;
+    private final LinkGraphStore linkGraphStore;
+    private final IndexingScheduler indexingScheduler;
+    private final IndexStore indexStore;
+    private final IndexingProgress indexingProgress;
+    private final SiteLocks siteLocks;
     private ThreadPoolExecutor executor;
     private TotalIndexer indexing;
     private URL fullURL;
@@ -44,7 +66,7 @@ public class IndexServiceImpl implements IndexService {
     private Page processedPage;
     private final Logger logger = LogManager.getLogger(getClass());
 
-    public IndexingResponse startIndexing() {
+    public IndexingResponse startIndexing(IndexingMode mode) {
         List<Site> sitesList = sites.getSites();
         for (Site site : sitesList) {
             boolean isSiteExists = siteRepository.existsByUrl(site.getUrl());
@@ -56,7 +78,10 @@ public class IndexServiceImpl implements IndexService {
                 return new IndexingResponse(false, "Индексация уже запущена");
             }
         }
-        indexing = new TotalIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, sitesList, userData);
+        indexing = new TotalIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, sitesList, userData,
+                crawlScheduler, pageFetcher, robotsTxtCache, linkGraphStore, indexingScheduler, indexStore, indexingProgress, siteLocks);
+        indexing.setMode(mode);
+        indexing.setDefaultBudget(sites.getBudget());
         executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
         executor.execute(indexing);
         return new IndexingResponse(true);
@@ -67,14 +92,8 @@ public class IndexServiceImpl implements IndexService {
         List<Site> sitesList = sites.getSites();
         List<String> siteUrls = sitesList.stream()
                 .map(Site::getUrl)
-                .map(value -> {
-                    try {
-                        return new URL(value);
-                    } catch (MalformedURLException e) {
-                        throw new RuntimeException(e);
-                    }
-                })
-                .map(URL::getAuthority)
+                .map(URI::create)
+                .map(URI::getAuthority)
                 .map(value -> value.startsWith("www.") ? value : "www." + value)
                 .toList();
         return addOrUpdatePage(url, siteUrls);
@@ -95,21 +114,31 @@ public class IndexServiceImpl implements IndexService {
             }
         }
         if (isIndexing) {
-            indexing.setIsStopped(true);
-            try {
-                executor.shutdownNow();
-            } catch (Exception ex) {
-                logger.error(ex.getMessage());
-            }
+            indexing.stopIndexing();
+            executor.shutdown();
             return new IndexingResponse(true);
         }
         return new IndexingResponse(false, "Индексация не запущена");
     }
 
+    public HostLimitsResponse getHostLimits() {
+        HostLimitsResponse response = new HostLimitsResponse();
+        response.setResult(true);
+        response.setHosts(crawlScheduler.getHostLimits());
+        return response;
+    }
+
+    public IndexingProgressResponse getIndexingProgress() {
+        IndexingProgressResponse response = new IndexingProgressResponse();
+        response.setResult(true);
+        response.setSites(indexingProgress.getProgress());
+        return response;
+    }
+
     private IndexingResponse getRootUrlWithWWW(String url) {
         try {
-            fullURL = new URL(url);
-        } catch (MalformedURLException e) {
+            fullURL = URI.create(url).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
             return new IndexingResponse(false, "Ошибка определения формата URL-адреса страницы при индексации");
         }
         rootUrl = fullURL.getAuthority();
@@ -137,26 +166,41 @@ public class IndexServiceImpl implements IndexService {
     private IndexingResponse processPage(String url) {
         rootUrl = rootUrl.startsWith("http") ? rootUrl : fullURL.getProtocol() + "://" + rootUrl;
         searchengine.model.Site site = siteRepository.findByUrl(rootUrl);
-        String path = url.replaceFirst(rootUrl, "/");
-        path = path.startsWith("//") ? path.substring(1) : path;
+        if (!siteLocks.tryAcquire(site.getUrl())) {
+            return new IndexingResponse(false, "Сайт страницы сейчас индексируется, повторите запрос позже");
+        }
+        try {
+            return processPage(site, url);
+        } finally {
+            siteLocks.release(site.getUrl());
+        }
+    }
+
+    private IndexingResponse processPage(searchengine.model.Site site, String url) {
+        UrlNormalizer urlNormalizer = new UrlNormalizer(rootUrl, userData.getUrlFilter());
+        String canonicalUrl = urlNormalizer.normalize(url);
+        if (canonicalUrl == null) {
+            return new IndexingResponse(false, "Данная страница не может быть проиндексирована");
+        }
+        String path = urlNormalizer.toPath(canonicalUrl);
         processedPage = pageRepository.findByPathAndSitePage(path, site);
         if (Optional.ofNullable(processedPage).isPresent()) {
-            int processedPageId = processedPage.getId();
-            indexRepository.deleteAllByPageId(processedPageId);
-            processedPage.setPath(rootUrl);
+            processedPage.setPath(canonicalUrl);
         } else {
-            processedPage = new Page(url, site);
+            processedPage = new Page(canonicalUrl, site);
         }
-        IndexingResponse indexingResponse = getPageData(site, url);
+        IndexingResponse indexingResponse = getPageData(site, canonicalUrl);
         if (indexingResponse != null) {
             return indexingResponse;
         }
         processedPage.setPath(path);
         pageRepository.save(processedPage);
-        List<Page> pages = (List<Page>) pageRepository.findAll();
-        PagesIndexer indexer = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, new AtomicBoolean(false));
-        indexer.setPages(pages);
+        PagesIndexer indexer = new PagesIndexer(fieldRepository, indexRepository, lemmaRepository, pageRepository, siteRepository, new CancellationToken());
         indexer.setSite(site);
+        indexer.setBoilerplateFilter(BoilerplateFilter.fromTemplateBlocks(site.getTemplateBlocks()));
+        indexer.setLemmaDictionary(indexStore.openDictionary(site));
+        indexer.setPostingsWriter(indexStore.openPostingsWriter());
+        indexer.setDeltaMode(true);
         indexer.pageIndexing(processedPage);
         saveIndexedSiteStatus(site);
         return null;
@@ -164,10 +208,11 @@ public class IndexServiceImpl implements IndexService {
 
     private IndexingResponse getPageData(searchengine.model.Site site, String url) {
         try {
-            SiteMapCreator siteMapCreator = new SiteMapCreator(indexRepository, lemmaRepository, pageRepository, siteRepository);
+            SiteMapCreator siteMapCreator = new SiteMapCreator(pageRepository);
             siteMapCreator.setPage(processedPage);
             siteMapCreator.setSite(site);
             siteMapCreator.setUserData(userData);
+            siteMapCreator.setPageFetcher(pageFetcher);
             processedPage = siteMapCreator.getPageData(processedPage);
         } catch (IOException e) {
             String errorText = "Ошибка получения данных индексируемой страницы";
@@ -16,10 +16,9 @@ import searchengine.repositories.SiteRepository;
 import searchengine.services.SearchService;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.*;
 
 @Service
 @RequiredArgsConstructor
@@ -28,51 +27,56 @@ public class SearchServiceImpl implements SearchService {
     private final IndexRepository indexRepository;
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
-    private String lastQuery = "";
-    private String lastSite;
-    private ArrayList<RelevantPage> lastResults;
-    private ArrayList<RelevantPage> results;
+    private volatile LastSearch lastSearch;
     private final Logger logger = LogManager.getLogger(getClass());
 
     public SearchResponse search(String query, String site, int offset, int limit) {
-        if (query.trim().equals(lastQuery) && !lastQuery.trim().equals("") && site.trim().equals(lastSite)) {
-            results = lastResults;
+        int requiredCount = Math.max(0, offset) + Math.max(0, limit);
+        LastSearch cachedSearch = lastSearch;
+        FoundPages foundPages;
+        if (isLastResultsSufficient(cachedSearch, query, site, requiredCount)) {
+            foundPages = cachedSearch.foundPages();
+            requiredCount = cachedSearch.requiredCount();
         } else {
-            SearchResponse searchResponse = newQuerySearch(query, site);
+            SearchResponse searchResponse = checkQuery(query, site);
             if (searchResponse != null) {
                 return searchResponse;
             }
+            try {
+                foundPages = site.equals("All sites") ? searchByAllSites(query, requiredCount)
+                        : searchBySite(query, site, requiredCount);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return createFalseSearchResponse("Ошибка поиска по сайтам");
+            }
         }
-        int count = results.size();
-        if (count == 0) {
+        ArrayList<RelevantPage> results = foundPages.pages();
+        if (results.size() == 0) {
             return createFalseSearchResponse("По поисковому запросу ничего не нашлось");
         }
-        lastQuery = query.trim();
-        lastSite = site;
-        lastResults = results;
-        results = resultLimiting(results, count, offset, limit);
-        return new SearchResponse(true, count, results);
+        lastSearch = new LastSearch(query.trim(), site, requiredCount, foundPages);
+        int count = results.size() < requiredCount ? results.size() : Math.max(foundPages.foundCount(), results.size());
+        return new SearchResponse(true, count, resultLimiting(results, results.size(), offset, limit));
+    }
+
+    private boolean isLastResultsSufficient(LastSearch cachedSearch, String query, String site, int requiredCount) {
+        if (cachedSearch == null || !query.trim().equals(cachedSearch.query()) || cachedSearch.query().equals("")
+                || !site.trim().equals(cachedSearch.site())) {
+            return false;
+        }
+        int cachedCount = cachedSearch.foundPages().pages().size();
+        return requiredCount <= cachedCount || cachedCount < cachedSearch.requiredCount();
     }
 
-    private SearchResponse newQuerySearch(String query, String site) {
+    private SearchResponse checkQuery(String query, String site) {
         if (query.trim().equals("")) {
             return createFalseSearchResponse("Задан пустой поисковый запрос");
         }
         if (indexRepository.count() == 0) {
             return createFalseSearchResponse("Никакой из сайтов еще не проиндексирован! Запустите индексацию!");
         }
-        if (site.equals("All sites")) {
-            try {
-                results = searchByAllSites(query);
-            } catch (InterruptedException e) {
-                return createFalseSearchResponse("Ошибка поиска по сайтам");
-            }
-        } else {
-            Status status = siteRepository.findByUrl(site).getStatus();
-            if (status != Status.INDEXED) {
-                return createFalseSearchResponse("Сайт еще не проиндексирован! Запустите индексацию!");
-            }
-            results = searchBySite(query, site);
+        if (!site.equals("All sites") && siteRepository.findByUrl(site).getStatus() != Status.INDEXED) {
+            return createFalseSearchResponse("Сайт еще не проиндексирован! Запустите индексацию!");
         }
         return null;
     }
@@ -82,33 +86,39 @@ public class SearchServiceImpl implements SearchService {
         return new SearchResponse(false, message);
     }
 
-    private Callable<ArrayList<RelevantPage>> callableSearchBySite(String query, String site) {
-        return () -> searchBySite(query, site);
+    private Callable<FoundPages> callableSearchBySite(String query, String site, int requiredCount) {
+        return () -> searchBySite(query, site, requiredCount);
     }
 
-    private ArrayList<RelevantPage> searchByAllSites(String query) throws InterruptedException {
+    private FoundPages searchByAllSites(String query, int requiredCount) throws InterruptedException {
         ArrayList<String> sites = siteRepository.findAllUrlByStatus(Status.INDEXED);
         ExecutorService executor = Executors.newWorkStealingPool();
-        List<Callable<ArrayList<RelevantPage>>> callableSearches = new ArrayList<>();
+        List<Callable<FoundPages>> callableSearches = new ArrayList<>();
         for (String url : sites) {
-            callableSearches.add(callableSearchBySite(query, url));
+            callableSearches.add(callableSearchBySite(query, url, requiredCount));
+        }
+        ArrayList<RelevantPage> relevantPages = new ArrayList<>();
+        int foundCount = 0;
+        try {
+            for (Future<FoundPages> future : executor.invokeAll(callableSearches)) {
+                FoundPages sitePages = future.get();
+                relevantPages.addAll(sitePages.pages());
+                foundCount += sitePages.foundCount();
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            executor.shutdown();
         }
-        return executor.invokeAll(callableSearches)
-                .stream()
-                .map(future -> {
-                    try {
-                        return future.get();
-                    } catch (Exception ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                })
-                .collect(ArrayList::new, List::addAll, List::addAll);
+        relevantPages.sort(Comparator.comparing(RelevantPage::getRelevance).reversed());
+        return new FoundPages(relevantPages, foundCount);
     }
 
-    private ArrayList<RelevantPage> searchBySite(String query, String url) {
+    private FoundPages searchBySite(String query, String url, int requiredCount) {
         Site site = siteRepository.findByUrl(url);
         Searcher searcher = new Searcher(indexRepository, lemmaRepository, pageRepository, siteRepository, site);
-        return searcher.search(query);
+        ArrayList<RelevantPage> relevantPages = searcher.search(query, requiredCount);
+        return new FoundPages(relevantPages, searcher.getFoundCount());
     }
 
     private ArrayList<RelevantPage> resultLimiting(ArrayList<RelevantPage> results, int count, int offset, int limit) {
@@ -122,4 +132,10 @@ public class SearchServiceImpl implements SearchService {
         }
         return new ArrayList<>(results.subList(startIndex, endIndex));
     }
+
+    private record FoundPages(ArrayList<RelevantPage> pages, int foundCount) {
+    }
+
+    private record LastSearch(String query, String site, int requiredCount, FoundPages foundPages) {
+    }
 }
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
+import searchengine.data.IndexingProgress;
 import searchengine.dto.statistics.DetailedStatisticsItem;
 import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
@@ -24,6 +25,7 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final LemmaRepository lemmaRepository;
     private final PageRepository pageRepository;
     private final SiteRepository siteRepository;
+    private final IndexingProgress indexingProgress;
     private TotalStatistics total = new TotalStatistics();
     private List<DetailedStatisticsItem> detailed = new ArrayList<>();
 
@@ -63,6 +65,7 @@ public class StatisticsServiceImpl implements StatisticsService {
             int lemmasCount = lemmaRepository.countBySiteLemma(site);
             item.setPages(pagesCount);
             item.setLemmas(lemmasCount);
+            item.setProgress(indexingProgress.getProgress(url));
             total.setPages(total.getPages() + pagesCount);
             total.setLemmas(total.getLemmas() + lemmasCount);
             detailed.add(item);
@@ -0,0 +1,60 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoilerplateFilterTest {
+    private static final String TEMPLATE = "Главная\nКаталог\nКонтакты\n© Магазин, 2024\n";
+
+    @Test
+    void removesBlocksRepeatedOnManyPages() {
+        BoilerplateFilter filter = new BoilerplateFilter();
+        for (int i = 0; i < 10; i++) {
+            filter.observe(TEMPLATE + "Уникальный текст страницы " + i);
+        }
+        filter.freeze();
+
+        assertEquals(4, filter.getTemplateBlocksCount());
+        assertEquals("Новый товар в продаже", filter.extractText(TEMPLATE + "Новый товар в продаже"));
+    }
+
+    @Test
+    void comparesBlocksIgnoringCase() {
+        BoilerplateFilter filter = new BoilerplateFilter();
+        for (int i = 0; i < BoilerplateFilter.MIN_PAGES; i++) {
+            filter.observe("Меню сайта\nСтатья " + i);
+        }
+        filter.freeze();
+
+        assertEquals("Статья", filter.extractText("МЕНЮ САЙТА\nСтатья"));
+    }
+
+    @Test
+    void keepsEverythingUntilEnoughPagesAreObserved() {
+        BoilerplateFilter filter = new BoilerplateFilter();
+        for (int i = 0; i < BoilerplateFilter.MIN_PAGES - 1; i++) {
+            filter.observe(TEMPLATE);
+        }
+        filter.freeze();
+
+        assertEquals(0, filter.getTemplateBlocksCount());
+        assertEquals("Главная Каталог", filter.extractText("Главная\nКаталог"));
+    }
+
+    @Test
+    void restoresTemplateBlocksFromSerializedForm() {
+        BoilerplateFilter filter = new BoilerplateFilter();
+        for (int i = 0; i < 10; i++) {
+            filter.observe(TEMPLATE + "Страница " + i);
+        }
+        filter.freeze();
+
+        BoilerplateFilter restored = BoilerplateFilter.fromTemplateBlocks(filter.serialize());
+
+        assertEquals(filter.getTemplateBlocksCount(), restored.getTemplateBlocksCount());
+        assertEquals("Текст", restored.extractText(TEMPLATE + "Текст"));
+        assertEquals(0, BoilerplateFilter.fromTemplateBlocks(null).getTemplateBlocksCount());
+        assertEquals("", restored.extractText(null));
+    }
+}
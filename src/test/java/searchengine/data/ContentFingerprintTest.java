@@ -0,0 +1,61 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentFingerprintTest {
+    private static final String TEXT = "Интернет-магазин бытовой техники предлагает холодильники, стиральные машины "
+            + "и пылесосы с доставкой по всей России. Гарантия на всю технику составляет два года, "
+            + "а оплатить заказ можно картой или наличными при получении в пункте выдачи.";
+
+    @Test
+    void tokenizesLettersAndDigitsInLowerCase() {
+        assertEquals(List.of("цена", "1990", "руб", "доставка", "24", "7"),
+                ContentFingerprint.tokenize("  Цена: 1990 руб.\nДОСТАВКА — 24/7"));
+        assertTrue(ContentFingerprint.tokenize(" ,.;— ").isEmpty());
+    }
+
+    @Test
+    void hashesAreStableAndDistinct() {
+        assertEquals(ContentFingerprint.hash64("страница"), ContentFingerprint.hash64(new StringBuilder("страница")));
+        assertNotEquals(ContentFingerprint.hash64("страница"), ContentFingerprint.hash64("страницы"));
+    }
+
+    @Test
+    void equalTextsHaveEqualSimHash() {
+        assertEquals(simHash(TEXT), simHash(TEXT.toUpperCase().replace(" ", "  ")));
+    }
+
+    @Test
+    void smallEditKeepsSimHashClose() {
+        String edited = TEXT.replace("два года", "три года");
+        String different = "Расписание электричек на сегодня и завтра: время отправления, прибытия, "
+                + "стоимость билета и остановки по маршруту для всех направлений пригородного сообщения.";
+
+        int nearDistance = ContentFingerprint.distance(simHash(TEXT), simHash(edited));
+        int farDistance = ContentFingerprint.distance(simHash(TEXT), simHash(different));
+
+        assertTrue(nearDistance < farDistance, nearDistance + " >= " + farDistance);
+        assertTrue(nearDistance <= 16, "distance " + nearDistance);
+    }
+
+    @Test
+    void simHashHandlesShortTexts() {
+        assertEquals(0L, ContentFingerprint.simHash(List.of()));
+        assertNotEquals(0L, ContentFingerprint.simHash(List.of("одно")));
+    }
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertEquals(0, ContentFingerprint.distance(0b1011L, 0b1011L));
+        assertEquals(2, ContentFingerprint.distance(0b1011L, 0b0001L));
+        assertEquals(64, ContentFingerprint.distance(0L, -1L));
+    }
+
+    private long simHash(String text) {
+        return ContentFingerprint.simHash(ContentFingerprint.tokenize(text));
+    }
+}
@@ -0,0 +1,67 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlCheckpointTest {
+
+    @Test
+    void restoresSavedSnapshot() throws IOException {
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(Files.createTempDirectory("checkpoint"), "https://www.example.com/");
+        CrawlFrontier.Snapshot snapshot = new CrawlFrontier.Snapshot(new long[]{1L, -5L, Long.MAX_VALUE}, List.of(
+                new CrawlFrontier.Entry("https://www.example.com/каталог", 2, 0.9, 3, 7),
+                new CrawlFrontier.Entry("https://www.example.com/b", 3, 0.5, 1, 8)));
+
+        checkpoint.save(snapshot);
+        CrawlFrontier.Snapshot loaded = checkpoint.load();
+
+        assertArrayEquals(snapshot.visited(), loaded.visited());
+        assertEquals(2, loaded.pending().size());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(snapshot.pending().get(i).url(), loaded.pending().get(i).url());
+            assertEquals(snapshot.pending().get(i).depth(), loaded.pending().get(i).depth());
+            assertEquals(snapshot.pending().get(i).weight(), loaded.pending().get(i).weight());
+        }
+    }
+
+    @Test
+    void returnsNullWithoutCheckpoint() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, "https://example.com");
+
+        assertNull(checkpoint.load());
+
+        checkpoint.save(new CrawlFrontier.Snapshot(new long[]{1L}, List.of()));
+        checkpoint.delete();
+
+        assertNull(checkpoint.load());
+    }
+
+    @Test
+    void ignoresUnknownFormat() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, "https://example.com");
+        checkpoint.save(new CrawlFrontier.Snapshot(new long[0], List.of()));
+        try (var files = Files.list(directory)) {
+            Files.write(files.findFirst().orElseThrow(), new byte[]{1, 2, 3});
+        }
+
+        assertNull(checkpoint.load());
+    }
+
+    @Test
+    void keepsSitesInSeparateFiles() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        new CrawlCheckpoint(directory, "https://a.example.com").save(new CrawlFrontier.Snapshot(new long[]{1L}, List.of()));
+        new CrawlCheckpoint(directory, "https://b.example.com").save(new CrawlFrontier.Snapshot(new long[]{2L}, List.of()));
+
+        assertArrayEquals(new long[]{1L}, new CrawlCheckpoint(directory, "https://a.example.com").load().visited());
+        assertArrayEquals(new long[]{2L}, new CrawlCheckpoint(directory, "https://b.example.com").load().visited());
+    }
+}
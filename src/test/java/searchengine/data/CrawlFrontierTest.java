@@ -0,0 +1,106 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.CrawlPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlFrontierTest {
+
+    @Test
+    void acceptsEachUrlOnce() {
+        CrawlFrontier frontier = new CrawlFrontier();
+
+        assertTrue(frontier.offer("https://example.com/a", 1, CrawlFrontier.DEFAULT_WEIGHT));
+        assertFalse(frontier.offer("https://example.com/a", 2, CrawlFrontier.DEFAULT_WEIGHT));
+        assertEquals(1, frontier.pendingCount());
+        assertTrue(frontier.isVisited("https://example.com/a"));
+        assertFalse(frontier.isVisited("https://example.com/b"));
+    }
+
+    @Test
+    void pollsShallowPagesFirstInOfferOrder() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.offer("https://example.com/deep", 2, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/first", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/second", 1, CrawlFrontier.DEFAULT_WEIGHT);
+
+        assertEquals(List.of("https://example.com/first", "https://example.com/second", "https://example.com/deep"),
+                pollAll(frontier));
+        assertNull(frontier.poll());
+    }
+
+    @Test
+    void ordersLevelBySitemapPriority() {
+        CrawlFrontier frontier = new CrawlFrontier(CrawlPriority.SITEMAP, 0, 0);
+        frontier.offer("https://example.com/low", 1, 0.1);
+        frontier.offer("https://example.com/high", 1, 0.9);
+
+        assertEquals(List.of("https://example.com/high", "https://example.com/low"), pollAll(frontier));
+    }
+
+    @Test
+    void ordersLevelByInboundLinks() {
+        CrawlFrontier frontier = new CrawlFrontier(CrawlPriority.INBOUND_LINKS, 0, 0);
+        frontier.offer("https://example.com/rare", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/popular", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/popular", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/popular", 1, CrawlFrontier.DEFAULT_WEIGHT);
+
+        assertEquals(List.of("https://example.com/popular", "https://example.com/rare"), pollAll(frontier));
+    }
+
+    @Test
+    void enforcesDepthAndPageLimits() {
+        CrawlFrontier frontier = new CrawlFrontier(CrawlPriority.BREADTH_FIRST, 2, 2);
+
+        assertFalse(frontier.offer("https://example.com/too-deep", 3, CrawlFrontier.DEFAULT_WEIGHT));
+        assertEquals(1, frontier.getTooDeepCount());
+        assertTrue(frontier.offer("https://example.com/a", 1, CrawlFrontier.DEFAULT_WEIGHT));
+        assertTrue(frontier.offer("https://example.com/b", 2, CrawlFrontier.DEFAULT_WEIGHT));
+        assertTrue(frontier.isPageLimitReached());
+        assertFalse(frontier.offer("https://example.com/c", 1, CrawlFrontier.DEFAULT_WEIGHT));
+    }
+
+    @Test
+    void followsRedirectOnlyToUnvisitedTarget() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.offer("https://example.com/old", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/other", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.poll();
+
+        assertTrue(frontier.redirect("https://example.com/old", "https://example.com/new"));
+        assertTrue(frontier.isVisited("https://example.com/new"));
+        assertFalse(frontier.redirect("https://example.com/new", "https://example.com/other"));
+    }
+
+    @Test
+    void snapshotRestoresUnfinishedPages() {
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.offer("https://example.com/done", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/in-progress", 1, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.offer("https://example.com/pending", 2, CrawlFrontier.DEFAULT_WEIGHT);
+        frontier.markDone(frontier.poll().url());
+        frontier.poll();
+
+        CrawlFrontier restored = new CrawlFrontier();
+        restored.restore(frontier.snapshot());
+
+        assertEquals(3, restored.visitedCount());
+        assertEquals(2, restored.pendingCount());
+        assertFalse(restored.offer("https://example.com/done", 1, CrawlFrontier.DEFAULT_WEIGHT));
+        assertEquals(List.of("https://example.com/in-progress", "https://example.com/pending"), pollAll(restored));
+    }
+
+    private List<String> pollAll(CrawlFrontier frontier) {
+        List<String> urls = new ArrayList<>();
+        CrawlFrontier.Entry entry;
+        while ((entry = frontier.poll()) != null) {
+            urls.add(entry.url());
+        }
+        return urls;
+    }
+}
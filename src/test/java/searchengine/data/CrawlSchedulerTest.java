@@ -0,0 +1,92 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import searchengine.config.UserData;
+import searchengine.dto.indexing.HostLimit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlSchedulerTest {
+    private static final String URL = "https://example.com/page";
+    private final UserData userData = new UserData();
+    private final CrawlScheduler scheduler = createScheduler();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void runsOneTaskPerHostUntilReleased() {
+        List<Runnable> started = new ArrayList<>();
+        Executor executor = started::add;
+
+        scheduler.submit(URL, () -> {}, executor, () -> {});
+        scheduler.submit(URL, () -> {}, executor, () -> {});
+        scheduler.submit("https://other.com/", () -> {}, executor, () -> {});
+
+        assertEquals(2, started.size());
+        assertEquals(1, limit("example.com").getQueued());
+        scheduler.release(URL);
+        assertEquals(3, started.size());
+        assertEquals(0, limit("example.com").getQueued());
+    }
+
+    @Test
+    void rejectedTaskRunsCallbackAndFreesSlot() {
+        AtomicInteger rejected = new AtomicInteger();
+        List<Runnable> started = new ArrayList<>();
+
+        scheduler.submit(URL, () -> {}, task -> {
+            throw new RejectedExecutionException();
+        }, rejected::incrementAndGet);
+        scheduler.submit(URL, () -> {}, started::add, rejected::incrementAndGet);
+
+        assertEquals(1, rejected.get());
+        assertEquals(1, started.size());
+        assertEquals(1, limit("example.com").getActive());
+    }
+
+    @Test
+    void concurrencyGrowsOnFastResponsesAndHalvesOnCongestion() {
+        scheduler.setMinInterval(URL, Duration.ofSeconds(1));
+        scheduler.submit(URL, () -> {}, Runnable::run, () -> {});
+        for (int i = 0; i < 10; i++) {
+            scheduler.reportSuccess(URL, 0);
+        }
+        assertEquals(4, limit("example.com").getConcurrencyLimit());
+
+        scheduler.reportCongestion(URL, Duration.ZERO);
+
+        assertEquals(2, limit("example.com").getConcurrencyLimit());
+        assertEquals(2000, limit("example.com").getIntervalMillis());
+    }
+
+    @Test
+    void crawlDelayWidensRequestInterval() {
+        scheduler.setMinInterval(URL, Duration.ofSeconds(3));
+
+        assertEquals(3000, limit("example.com").getIntervalMillis());
+    }
+
+    private CrawlScheduler createScheduler() {
+        userData.getPoliteness().setRequestsPerSecond(0);
+        userData.getPoliteness().setMaxConcurrency(4);
+        return new CrawlScheduler(userData);
+    }
+
+    private HostLimit limit(String host) {
+        return scheduler.getHostLimits().stream()
+                .filter(limit -> limit.getHost().equals(host))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,50 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchResultTest {
+
+    @Test
+    void acceptsHtmlMediaTypes() {
+        assertTrue(result("text/html; charset=windows-1251", "").isHtml());
+        assertTrue(result("TEXT/HTML", "").isHtml());
+        assertTrue(result("application/xhtml+xml", "").isHtml());
+    }
+
+    @Test
+    void rejectsFeedsImagesAndSitemaps() {
+        assertFalse(result("application/rss+xml", "<rss></rss>").isHtml());
+        assertFalse(result("application/atom+xml", "<feed></feed>").isHtml());
+        assertFalse(result("image/svg+xml", "<svg></svg>").isHtml());
+        assertFalse(result("application/xml", "<urlset></urlset>").isHtml());
+        assertFalse(result("text/plain", "<html></html>").isHtml());
+    }
+
+    @Test
+    void sniffsBodyWithoutContentType() {
+        assertTrue(result(null, "\uFEFF  <!DOCTYPE html><html><body></body></html>").isHtml());
+        assertTrue(result(null, "<!-- шапка --><html lang=\"ru\"></html>").isHtml());
+        assertFalse(result(null, "<?xml version=\"1.0\"?><rss><channel></channel></rss>").isHtml());
+        assertFalse(result(null, "%PDF-1.7").isHtml());
+        assertFalse(result(null, "").isHtml());
+    }
+
+    @Test
+    void readsCharsetParameter() {
+        assertEquals("windows-1251", result("text/html; charset=\"windows-1251\"", "").charset());
+        assertNull(result("text/html", "").charset());
+    }
+
+    private FetchResult result(String contentType, String body) {
+        Map<String, List<String>> headers = contentType == null ? Map.of() : Map.of("Content-Type", List.of(contentType));
+        return new FetchResult("https://example.com/", 200, HttpHeaders.of(headers, (name, value) -> true),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
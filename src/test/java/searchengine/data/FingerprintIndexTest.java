@@ -0,0 +1,61 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintIndexTest {
+    private static final long SIM_HASH = 0x0123_4567_89ab_cdefL;
+
+    @Test
+    void reportsExactCopyByContentHash() {
+        FingerprintIndex index = new FingerprintIndex();
+        assertNull(index.registerOrGetOriginal(1, "hash", SIM_HASH, 5));
+
+        assertEquals(1, index.registerOrGetOriginal(2, "hash", ~SIM_HASH, 5));
+    }
+
+    @Test
+    void reportsNearCopyWithinDistance() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.register(1, "first", SIM_HASH);
+
+        assertEquals(1, index.registerOrGetOriginal(2, "second", SIM_HASH ^ 0b101L, FingerprintIndex.MIN_TOKENS));
+        assertNull(index.registerOrGetOriginal(3, "third", SIM_HASH ^ 0xf0f0L, FingerprintIndex.MIN_TOKENS));
+    }
+
+    @Test
+    void ignoresNearCopiesOfShortPages() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.register(1, "first", SIM_HASH);
+
+        assertNull(index.registerOrGetOriginal(2, "second", SIM_HASH, FingerprintIndex.MIN_TOKENS - 1));
+    }
+
+    @Test
+    void doesNotMatchPageAgainstItself() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.register(1, "hash", SIM_HASH);
+
+        assertNull(index.registerOrGetOriginal(1, "hash", SIM_HASH, FingerprintIndex.MIN_TOKENS));
+    }
+
+    @Test
+    void forgetsUnregisteredPage() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.register(1, "old", SIM_HASH);
+        index.unregister(1);
+
+        assertNull(index.registerOrGetOriginal(2, "old", SIM_HASH, FingerprintIndex.MIN_TOKENS));
+    }
+
+    @Test
+    void replacesStaleFingerprintOnReRegistration() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.register(1, "old", SIM_HASH);
+        index.register(1, "new", ~SIM_HASH);
+
+        assertNull(index.registerOrGetOriginal(2, "old", SIM_HASH, FingerprintIndex.MIN_TOKENS));
+        assertEquals(1, index.registerOrGetOriginal(3, "new", 0L, 5));
+    }
+}
@@ -0,0 +1,119 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.Pipeline;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class IndexingPipelineTest {
+    private final PagesIndexer pagesIndexer = mock(PagesIndexer.class);
+    private final PageRepository pageRepository = mock(PageRepository.class);
+    private final ProgressTracker progressTracker = new ProgressTracker("https://example.com", "Пример");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void indexesAllSubmittedPagesBeforeCompleting() throws Exception {
+        when(pageRepository.findAllWithContentByIdIn(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Integer>) invocation.getArgument(0)).stream().map(this::page).toList());
+        when(pagesIndexer.lemmatize(any())).thenAnswer(invocation -> lemmas(invocation.getArgument(0)));
+        ExecutorService cpuExecutor = Executors.newFixedThreadPool(2);
+        ExecutorService dbExecutor = Executors.newSingleThreadExecutor();
+        try {
+            IndexingPipeline pipeline = new IndexingPipeline(pagesIndexer, pageRepository, pipeline(2, 2),
+                    cpuExecutor, dbExecutor, progressTracker);
+            pipeline.submit(List.of(1, 2, 3, 4, 5));
+            pipeline.submit(List.of(6, 7));
+
+            pipeline.close().get(5, TimeUnit.SECONDS);
+
+            verify(pagesIndexer, times(7)).saveLemmas(any());
+            assertEquals(7, progressTracker.getPagesIndexed());
+            assertEquals(0, pipeline.getWaitingCount());
+        } finally {
+            cpuExecutor.shutdownNow();
+            dbExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void limitsBatchesInWork() {
+        List<Runnable> lemmatizeTasks = new ArrayList<>();
+        IndexingPipeline pipeline = new IndexingPipeline(pagesIndexer, pageRepository, pipeline(2, 1),
+                lemmatizeTasks::add, Runnable::run, progressTracker);
+
+        pipeline.submit(List.of(1, 2, 3, 4, 5));
+
+        assertEquals(1, lemmatizeTasks.size());
+        assertEquals(3, pipeline.getWaitingCount());
+        lemmatizeTasks.get(0).run();
+        assertEquals(2, lemmatizeTasks.size());
+        assertEquals(1, pipeline.getWaitingCount());
+    }
+
+    @Test
+    void skipsPagesThatFailToLemmatize() throws Exception {
+        when(pageRepository.findAllWithContentByIdIn(anyCollection())).thenReturn(List.of(page(1), page(2)));
+        when(pagesIndexer.lemmatize(any())).thenThrow(new IllegalStateException("ошибка")).thenAnswer(
+                invocation -> lemmas(invocation.getArgument(0)));
+        IndexingPipeline pipeline = new IndexingPipeline(pagesIndexer, pageRepository, pipeline(2, 1),
+                Runnable::run, Runnable::run, progressTracker);
+
+        pipeline.submit(List.of(1, 2));
+        pipeline.close().get(5, TimeUnit.SECONDS);
+
+        verify(pagesIndexer, times(1)).saveLemmas(any());
+    }
+
+    @Test
+    void completesWhenExecutorRejectsBatch() throws Exception {
+        IndexingPipeline pipeline = new IndexingPipeline(pagesIndexer, pageRepository, pipeline(2, 1), task -> {
+            throw new RejectedExecutionException();
+        }, Runnable::run, progressTracker);
+
+        pipeline.submit(List.of(1, 2, 3));
+
+        pipeline.close().get(5, TimeUnit.SECONDS);
+        assertTrue(pipeline.isDone());
+    }
+
+    @Test
+    void cancelDropsWaitingPages() {
+        IndexingPipeline pipeline = new IndexingPipeline(pagesIndexer, pageRepository, pipeline(2, 1),
+                task -> {}, Runnable::run, progressTracker);
+        pipeline.submit(List.of(1, 2, 3, 4));
+
+        pipeline.cancel();
+
+        assertEquals(0, pipeline.getWaitingCount());
+        assertTrue(pipeline.close().isCancelled());
+    }
+
+    private Pipeline pipeline(int batchSize, int maxActiveBatches) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setBatchSize(batchSize);
+        pipeline.setMaxActiveBatches(maxActiveBatches);
+        return pipeline;
+    }
+
+    private Page page(int id) {
+        Page page = new Page("/page" + id, new Site());
+        page.setId(id);
+        return page;
+    }
+
+    private PagesIndexer.PageLemmas lemmas(Page page) {
+        return new PagesIndexer.PageLemmas(page.getId(), page.getPath(), Map.of("дом", 1), Map.of());
+    }
+}
@@ -0,0 +1,164 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import searchengine.model.Site;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LemmaDictionaryTest {
+    private final LemmaTable lemmaTable = new LemmaTable();
+    private final Site site = site(1);
+
+    @Test
+    void resolveInsertsMissingLemmasOnce() {
+        LemmaDictionary dictionary = new LemmaDictionary(lemmaTable, site);
+
+        Map<String, Integer> first = dictionary.resolve(List.of("дом", "кот"));
+        Map<String, Integer> second = dictionary.resolve(List.of("кот", "дом"));
+
+        assertEquals(first, second);
+        assertEquals(2, lemmaTable.rows.size());
+        assertEquals(0, lemmaTable.frequency("дом"));
+    }
+
+    @Test
+    void resolveFailsWhenInsertedLemmaIsNotFound() {
+        lemmaTable.hiddenLemmas.add("всё");
+        LemmaDictionary dictionary = new LemmaDictionary(lemmaTable, site);
+
+        assertThrows(IllegalStateException.class, () -> dictionary.resolve(List.of("все", "всё")));
+    }
+
+    @Test
+    void flushAddsAccumulatedFrequencies() {
+        LemmaDictionary dictionary = new LemmaDictionary(lemmaTable, site);
+        Map<String, Integer> ids = dictionary.resolve(List.of("дом", "кот"));
+
+        dictionary.addPage(ids.values());
+        dictionary.addPage(List.of(ids.get("дом")));
+        dictionary.flush();
+        dictionary.addPage(List.of(ids.get("кот")));
+        dictionary.flush();
+
+        assertEquals(2, lemmaTable.frequency("дом"));
+        assertEquals(2, lemmaTable.frequency("кот"));
+    }
+
+    @Test
+    void removePageLoadsLemmasOfAnotherDictionary() {
+        LemmaDictionary crawl = new LemmaDictionary(lemmaTable, site);
+        Map<String, Integer> ids = crawl.resolve(List.of("дом"));
+        crawl.addPage(ids.values());
+        crawl.addPage(ids.values());
+        crawl.flush();
+
+        LemmaDictionary revisit = new LemmaDictionary(lemmaTable, site);
+        revisit.removePage(ids.values());
+        revisit.flush();
+
+        assertEquals(1, lemmaTable.frequency("дом"));
+    }
+
+    @Test
+    void deleteUnusedKeepsZeroRowsOfConcurrentIndexing() {
+        LemmaDictionary page = new LemmaDictionary(lemmaTable, site);
+        Map<String, Integer> ids = page.resolve(List.of("дом", "кот"));
+        page.addPage(ids.values());
+        page.flush();
+        LemmaDictionary crawl = new LemmaDictionary(lemmaTable, site);
+        crawl.resolve(List.of("мяч"));
+
+        page.removePage(List.of(ids.get("кот")));
+        page.deleteUnused();
+
+        assertEquals(Set.of("дом", "мяч"), lemmaTable.rows.keySet());
+        Map<String, Integer> recreated = page.resolve(List.of("кот"));
+        assertNotEquals(ids.get("кот"), recreated.get("кот"));
+    }
+
+    private static Site site(int id) {
+        Site site = new Site();
+        site.setId(id);
+        return site;
+    }
+
+    /**
+     * Таблица lemma одного сайта в памяти: выполняет те запросы, которые
+     * отправляет {@link LemmaDictionary}.
+     */
+    private static class LemmaTable extends JdbcTemplate {
+        private final Map<String, int[]> rows = new LinkedHashMap<>();
+        private final Set<String> hiddenLemmas = new HashSet<>();
+        private int nextId = 1;
+
+        private int frequency(String lemma) {
+            return rows.get(lemma)[1];
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            int updated = 0;
+            if (sql.startsWith("INSERT IGNORE INTO lemma")) {
+                for (int i = 0; i < args.length; i += 2) {
+                    if (rows.putIfAbsent((String) args[i], new int[]{nextId, 0}) == null) {
+                        nextId++;
+                        updated++;
+                    }
+                }
+            } else if (sql.startsWith("INSERT INTO lemma (id, lemma, frequency, site_id)")) {
+                for (int i = 0; i < args.length; i += 4) {
+                    int id = (Integer) args[i];
+                    int[] row = rows.computeIfAbsent((String) args[i + 1], key -> new int[]{id, 0});
+                    row[1] += (Integer) args[i + 2];
+                    updated++;
+                }
+            } else if (sql.startsWith("DELETE FROM lemma WHERE frequency <= 0 AND id IN")) {
+                List<Object> ids = Arrays.asList(args);
+                Iterator<int[]> iterator = rows.values().iterator();
+                while (iterator.hasNext()) {
+                    int[] row = iterator.next();
+                    if (row[1] <= 0 && ids.contains(row[0])) {
+                        iterator.remove();
+                        updated++;
+                    }
+                }
+            } else {
+                throw new UnsupportedOperationException(sql);
+            }
+            return updated;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            List<Object> values = Arrays.asList(args);
+            try {
+                for (Map.Entry<String, int[]> row : rows.entrySet()) {
+                    boolean isMatch = sql.contains("WHERE site_id = ? AND lemma IN")
+                            ? values.subList(1, values.size()).contains(row.getKey())
+                            && !hiddenLemmas.contains(row.getKey())
+                            : values.contains(row.getValue()[0]);
+                    if (isMatch) {
+                        handler.processRow(resultSet(row.getValue()[0], row.getKey()));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private ResultSet resultSet(int id, String lemma) throws SQLException {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getInt("id")).thenReturn(id);
+            when(resultSet.getString("lemma")).thenReturn(lemma);
+            return resultSet;
+        }
+    }
+}
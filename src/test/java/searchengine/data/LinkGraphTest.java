@@ -0,0 +1,58 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkGraphTest {
+
+    @Test
+    void encodesTargetsAsVarintDeltas() {
+        int[] targets = {1, 2, 130, 20_000, 2_000_000, Integer.MAX_VALUE};
+
+        byte[] encoded = LinkGraph.encode(targets);
+
+        assertArrayEquals(targets, LinkGraph.decode(encoded));
+        assertEquals(2, LinkGraph.encode(new int[]{1, 2}).length);
+        assertEquals(0, LinkGraph.decode(LinkGraph.encode(new int[0])).length);
+    }
+
+    @Test
+    void resolvesLinksToPageIds() {
+        LinkGraph linkGraph = new LinkGraph();
+        linkGraph.addLinks("https://example.com/", List.of("https://example.com/b", "https://example.com/a",
+                "https://example.com/", "https://example.com/missing", "https://example.com/a"));
+        linkGraph.addLinks("https://example.com/a", List.of("https://example.com/"));
+
+        Map<Integer, int[]> links = linkGraph.resolve(pageIds("https://example.com/", 10,
+                "https://example.com/a", 11, "https://example.com/b", 12));
+
+        assertArrayEquals(new int[]{11, 12}, links.get(10));
+        assertArrayEquals(new int[]{10}, links.get(11));
+        assertFalse(links.containsKey(12));
+        assertEquals(5, linkGraph.getLinksCount());
+    }
+
+    @Test
+    void followsRedirectsWhenResolving() {
+        LinkGraph linkGraph = new LinkGraph();
+        linkGraph.addLinks("https://example.com/", List.of("https://example.com/old"));
+        linkGraph.addRedirect("https://example.com/old", "https://example.com/new");
+
+        Map<Integer, int[]> links = linkGraph.resolve(pageIds("https://example.com/", 1, "https://example.com/new", 2));
+
+        assertArrayEquals(new int[]{2}, links.get(1));
+    }
+
+    private Map<Long, Integer> pageIds(Object... urlsAndIds) {
+        Map<Long, Integer> pageIds = new HashMap<>();
+        for (int i = 0; i < urlsAndIds.length; i += 2) {
+            pageIds.put(CrawlFrontier.fingerprint((String) urlsAndIds[i]), (Integer) urlsAndIds[i + 1]);
+        }
+        return pageIds;
+    }
+}
@@ -0,0 +1,73 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class PageBatchWriterTest {
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    @Test
+    void flushesPartialBatchWhenBudgetIsExhausted() throws Exception {
+        PageRepository pageRepository = mockRepository();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PageBatchWriter writer = new PageBatchWriter(pageRepository, 100, 1000, batch -> batch, executor);
+            writer.add(page("/a", 300));
+            writer.add(page("/b", 300));
+            assertFalse(writer.hasCapacity());
+
+            CountDownLatch resumed = new CountDownLatch(1);
+            writer.whenCapacity(resumed::countDown);
+
+            assertTrue(resumed.await(5, TimeUnit.SECONDS));
+            writer.close().get(5, TimeUnit.SECONDS);
+            assertEquals(2, writer.getSavedPageIds().size());
+            verify(pageRepository, times(1)).saveAll(anyList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void runsTaskImmediatelyWhileWithinBudget() throws Exception {
+        PageRepository pageRepository = mockRepository();
+        PageBatchWriter writer = new PageBatchWriter(pageRepository, 100, 10_000, batch -> batch, Runnable::run);
+        writer.add(page("/a", 300));
+        AtomicInteger runs = new AtomicInteger();
+
+        writer.whenCapacity(runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        verify(pageRepository, never()).saveAll(anyList());
+        writer.close().get(5, TimeUnit.SECONDS);
+        assertEquals(1, writer.getSavedPageIds().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PageRepository mockRepository() {
+        PageRepository pageRepository = mock(PageRepository.class);
+        when(pageRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Page> pages = new ArrayList<>((List<Page>) invocation.getArgument(0));
+            pages.forEach(page -> page.setId(nextId.getAndIncrement()));
+            return pages;
+        });
+        return pageRepository;
+    }
+
+    private Page page(String path, int length) {
+        Page page = new Page(path, new Site());
+        page.setContent("x".repeat(length));
+        return page;
+    }
+}
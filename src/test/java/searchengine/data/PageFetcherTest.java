@@ -0,0 +1,95 @@
+package searchengine.data;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import searchengine.config.UserData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageFetcherTest {
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @Test
+    void decodesGzipBody() throws Exception {
+        byte[] html = "<html><body>Главная</body></html>".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = serve(gzip(html), "gzip");
+        try {
+            FetchResult result = fetcher().fetch(url(server));
+
+            assertEquals(200, result.statusCode());
+            assertArrayEquals(html, result.body());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void rejectsBodyOverLimit() throws Exception {
+        HttpServer server = serve(new byte[2 * MEGABYTE], "");
+        try {
+            assertThrows(IOException.class, () -> fetcher().fetch(url(server)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void rejectsBodyThatInflatesOverLimit() throws Exception {
+        byte[] bomb = gzip(new byte[8 * MEGABYTE]);
+        assertTrue(bomb.length < MEGABYTE);
+        HttpServer server = serve(bomb, "gzip");
+        try {
+            assertThrows(IOException.class, () -> fetcher().fetch(url(server)));
+            assertThrows(IOException.class, () -> {
+                try (FetchStream fetchStream = fetcher().fetchStream(url(server))) {
+                    fetchStream.body().readAllBytes();
+                }
+            });
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private PageFetcher fetcher() {
+        UserData userData = new UserData();
+        userData.getPoliteness().setMaxBodyMegabytes(1);
+        return new PageFetcher(userData);
+    }
+
+    private HttpServer serve(byte[] body, String contentEncoding) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            if (!contentEncoding.isEmpty()) {
+                exchange.getResponseHeaders().add("Content-Encoding", contentEncoding);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            } catch (IOException ignored) {
+                // клиент закрыл соединение, не дочитав ответ
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(bytes)) {
+            outputStream.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
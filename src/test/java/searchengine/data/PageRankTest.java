@@ -0,0 +1,49 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageRankTest {
+    private static final double DELTA = 1e-4;
+
+    @Test
+    void ranksSumToOne() {
+        double[] rank = PageRank.compute(new int[]{0, 2, 3, 3}, new int[]{1, 2, 2});
+
+        assertEquals(1.0, Arrays.stream(rank).sum(), DELTA);
+    }
+
+    @Test
+    void cycleGivesEqualRanks() {
+        double[] rank = PageRank.compute(new int[]{0, 1, 2, 3}, new int[]{1, 2, 0});
+
+        for (double value : rank) {
+            assertEquals(1.0 / 3, value, DELTA);
+        }
+    }
+
+    @Test
+    void pageWithMoreInboundLinksRanksHigher() {
+        double[] rank = PageRank.compute(new int[]{0, 1, 2, 3, 3}, new int[]{3, 3, 3});
+
+        assertTrue(rank[3] > rank[0]);
+        assertEquals(rank[0], rank[1], DELTA);
+        assertEquals(rank[1], rank[2], DELTA);
+    }
+
+    @Test
+    void danglingPageSharesItsRank() {
+        double[] rank = PageRank.compute(new int[]{0, 1, 1}, new int[]{1});
+
+        assertEquals(0.5 / 1.425, rank[0], DELTA);
+        assertEquals(1 - 0.5 / 1.425, rank[1], DELTA);
+    }
+
+    @Test
+    void emptyGraphHasNoRanks() {
+        assertEquals(0, PageRank.compute(new int[]{0}, new int[0]).length);
+    }
+}
@@ -0,0 +1,65 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.model.Field;
+import searchengine.model.Index;
+import searchengine.repositories.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PagesIndexerTest {
+    private final FieldRepository fieldRepository = mock(FieldRepository.class);
+    private final IndexRepository indexRepository = mock(IndexRepository.class);
+    private final LemmaDictionary lemmaDictionary = mock(LemmaDictionary.class);
+    private final PostingsWriter postingsWriter = mock(PostingsWriter.class);
+
+    @Test
+    void deltaModeWritesOnlyChangedPostings() {
+        when(fieldRepository.findByName("title")).thenReturn(new Field("title", "title", 1.0f));
+        when(fieldRepository.findByName("body")).thenReturn(new Field("body", "body", 0.8f));
+        when(lemmaDictionary.resolve(anyCollection())).thenReturn(Map.of("дом", 1, "кот", 2, "мяч", 3));
+        when(indexRepository.findAllByPageIdIn(List.of(7))).thenReturn(List.of(
+                new Index(7, 1, 1.0f), new Index(7, 2, 0.8f), new Index(7, 4, 1.6f)));
+        PagesIndexer indexer = deltaIndexer();
+
+        indexer.saveLemmas(new PagesIndexer.PageLemmas(7, "/", Map.of("дом", 1), Map.of("кот", 2, "мяч", 1)));
+
+        verify(postingsWriter).add(7, 3, 0.8f);
+        verify(postingsWriter).update(7, 2, 1.6f);
+        verify(postingsWriter).delete(7, 4);
+        verifyNoMoreInteractions(postingsWriter);
+        verify(lemmaDictionary).addPage(List.of(3));
+        verify(lemmaDictionary).removePage(Set.of(4));
+    }
+
+    @Test
+    void retractPagesRemovesPostingsAndLemmaFrequencies() {
+        when(indexRepository.findAllByPageIdIn(List.of(7, 8))).thenReturn(List.of(
+                new Index(7, 1, 1.0f), new Index(7, 2, 0.8f), new Index(8, 1, 1.0f)));
+        PagesIndexer indexer = deltaIndexer();
+
+        indexer.retractPages(List.of(7, 8));
+
+        verify(postingsWriter).delete(7, 1);
+        verify(postingsWriter).delete(7, 2);
+        verify(postingsWriter).delete(8, 1);
+        verify(lemmaDictionary).removePage(Set.of(1, 2));
+        verify(lemmaDictionary).removePage(Set.of(1));
+        verify(postingsWriter).flush();
+        verify(lemmaDictionary).deleteUnused();
+    }
+
+    private PagesIndexer deltaIndexer() {
+        PagesIndexer indexer = new PagesIndexer(fieldRepository, indexRepository, mock(LemmaRepository.class),
+                mock(PageRepository.class), mock(SiteRepository.class), new CancellationToken());
+        indexer.setLemmaDictionary(lemmaDictionary);
+        indexer.setPostingsWriter(postingsWriter);
+        indexer.setDeltaMode(true);
+        return indexer;
+    }
+}
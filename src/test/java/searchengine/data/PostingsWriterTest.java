@@ -0,0 +1,59 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PostingsWriterTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesFullBatchesImmediately() {
+        PostingsWriter writer = new PostingsWriter(jdbcTemplate, 2);
+
+        writer.add(1, 10, 1.0f);
+        verifyNoInteractions(jdbcTemplate);
+        writer.add(1, 11, 0.8f);
+        writer.add(2, 10, 1.8f);
+
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO `index`"), argThat((List<Object[]> rows) ->
+                rows.size() == 2 && rows.get(0)[1].equals(10) && rows.get(1)[1].equals(11)));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flushWritesDeletesBeforeUpdatesAndInserts() {
+        PostingsWriter writer = new PostingsWriter(jdbcTemplate, 100);
+        writer.add(1, 12, 1.0f);
+        writer.update(1, 11, 1.6f);
+        writer.delete(1, 10);
+
+        writer.flush();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("DELETE FROM `index`"), anyList());
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("UPDATE `index`"), anyList());
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO `index`"), anyList());
+        writer.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateBindsRankFirst() {
+        PostingsWriter writer = new PostingsWriter(jdbcTemplate, 1);
+
+        writer.update(3, 7, 2.4f);
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) ->
+                rows.size() == 1 && rows.get(0)[0].equals(2.4f) && rows.get(0)[1].equals(3) && rows.get(0)[2].equals(7)));
+        assertDoesNotThrow(writer::flush);
+    }
+}
@@ -0,0 +1,101 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.Revisit;
+import searchengine.model.Page;
+import searchengine.model.Site;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevisitPolicyTest {
+    private static final Duration TOLERANCE = Duration.ofSeconds(5);
+
+    private final RevisitPolicy policy = new RevisitPolicy(new Revisit());
+
+    @Test
+    void schedulesFirstVisitAfterInitialInterval() {
+        Page page = new Page("/", new Site());
+        policy.recordFirstVisit(page);
+
+        assertNotNull(page.getLastVisit());
+        assertNextVisitIn(page, Duration.ofHours(24));
+    }
+
+    @Test
+    void unchangedPageIntervalAtMostDoubles() {
+        Page page = visitedAgo(Duration.ofDays(10));
+        policy.recordVisit(page, false);
+
+        assertEquals(1, page.getVisitsCount());
+        assertEquals(0, page.getChangesCount());
+        assertEquals(Duration.ofDays(10).getSeconds(), page.getObservedSeconds(), TOLERANCE.getSeconds());
+        assertNextVisitIn(page, Duration.ofDays(20));
+    }
+
+    @Test
+    void unchangedPageIntervalIsCappedAtMaximum() {
+        Page page = visitedAgo(Duration.ofDays(20));
+        policy.recordVisit(page, false);
+
+        assertNextVisitIn(page, Duration.ofDays(30));
+    }
+
+    @Test
+    void frequentlyChangedPageIntervalAtMostHalves() {
+        Page page = visitedAgo(Duration.ofDays(10));
+        page.setVisitsCount(9);
+        page.setChangesCount(9);
+        page.setObservedSeconds(Duration.ofHours(9).getSeconds());
+        policy.recordVisit(page, true);
+
+        assertEquals(10, page.getChangesCount());
+        assertNextVisitIn(page, Duration.ofDays(5));
+    }
+
+    @Test
+    void intervalIsNotShorterThanMinimum() {
+        Page page = visitedAgo(Duration.ofMinutes(10));
+        policy.recordVisit(page, true);
+
+        assertNextVisitIn(page, Duration.ofMinutes(60));
+    }
+
+    @Test
+    void changedPageKeepsHistoryOfPreviousVersion() {
+        Page previousVersion = visitedAgo(Duration.ofDays(2));
+        previousVersion.setVisitsCount(3);
+        previousVersion.setChangesCount(1);
+        previousVersion.setObservedSeconds(Duration.ofDays(6).getSeconds());
+        Page page = new Page("/", new Site());
+
+        policy.recordChange(page, previousVersion);
+
+        assertEquals(4, page.getVisitsCount());
+        assertEquals(2, page.getChangesCount());
+        assertEquals(Duration.ofDays(8).getSeconds(), page.getObservedSeconds(), TOLERANCE.getSeconds());
+        assertTrue(page.getLastVisit().after(previousVersion.getLastVisit()));
+    }
+
+    @Test
+    void postponeDelaysByMinimumInterval() {
+        Page page = visitedAgo(Duration.ofDays(1));
+        policy.postpone(page);
+
+        assertNextVisitIn(page, Duration.ofMinutes(60));
+    }
+
+    private Page visitedAgo(Duration age) {
+        Page page = new Page("/", new Site());
+        page.setLastVisit(new Date(System.currentTimeMillis() - age.toMillis()));
+        return page;
+    }
+
+    private void assertNextVisitIn(Page page, Duration expected) {
+        long actual = page.getNextVisit().getTime() - System.currentTimeMillis();
+        assertEquals(expected.toMillis(), actual, TOLERANCE.toMillis(),
+                "next visit in " + Duration.ofMillis(actual));
+    }
+}
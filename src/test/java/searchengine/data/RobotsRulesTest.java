@@ -0,0 +1,77 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsRulesTest {
+    private static final String ROBOTS_TXT = """
+            # общие правила
+            User-agent: *
+            Disallow: /admin
+            Disallow: /*.pdf$
+            Disallow: /search?
+            Allow: /admin/public
+            Crawl-delay: 1.5
+
+            User-agent: OtherBot
+            Disallow: /
+
+            Sitemap: https://example.com/sitemap.xml
+            Sitemap: https://example.com/news.xml
+            """;
+
+    @Test
+    void longestMatchWins() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, "SearchBot/1.0");
+
+        assertFalse(rules.isAllowed("https://example.com/admin/users"));
+        assertTrue(rules.isAllowed("https://example.com/admin/public/page"));
+        assertTrue(rules.isAllowed("https://example.com/catalog"));
+        assertTrue(rules.isAllowed("https://example.com"));
+    }
+
+    @Test
+    void allowWinsOverDisallowOfSameLength() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /page\nAllow: /page\n", "SearchBot");
+
+        assertTrue(rules.isAllowed("https://example.com/page"));
+    }
+
+    @Test
+    void supportsWildcardsAndEndAnchor() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, "SearchBot/1.0");
+
+        assertFalse(rules.isAllowed("https://example.com/files/price.pdf"));
+        assertTrue(rules.isAllowed("https://example.com/files/price.pdf?v=2"));
+        assertFalse(rules.isAllowed("https://example.com/search?q=java"));
+        assertTrue(rules.isAllowed("https://example.com/search"));
+    }
+
+    @Test
+    void usesMostSpecificUserAgentGroup() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, "Mozilla/5.0 (compatible; OtherBot/2.1)");
+
+        assertFalse(rules.isAllowed("https://example.com/catalog"));
+        assertEquals(Duration.ZERO, rules.getCrawlDelay());
+    }
+
+    @Test
+    void readsCrawlDelayAndSitemaps() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS_TXT, "SearchBot/1.0");
+
+        assertEquals(Duration.ofMillis(1500), rules.getCrawlDelay());
+        assertEquals(List.of("https://example.com/sitemap.xml", "https://example.com/news.xml"), rules.getSitemaps());
+    }
+
+    @Test
+    void allowsEverythingWithoutMatchingGroup() {
+        RobotsRules rules = RobotsRules.parse("User-agent: OtherBot\nDisallow: /\n", "SearchBot");
+
+        assertTrue(rules.isAllowed("https://example.com/admin"));
+        assertTrue(RobotsRules.allowAll().isAllowed("https://example.com/admin"));
+    }
+}
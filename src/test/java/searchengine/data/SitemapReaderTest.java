@@ -0,0 +1,101 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.UserData;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitemapReaderTest {
+    private static final String URL_SET = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+              <url><loc> https://example.com/a </loc><priority>0.8</priority></url>
+              <url><loc>https://example.com/b</loc></url>
+              <url><loc>https://example.com/c</loc><priority>7</priority></url>
+            </urlset>
+            """;
+    private final Map<String, Double> urls = new LinkedHashMap<>();
+
+    @Test
+    void readsUrlsWithPriorities() throws Exception {
+        SitemapReader reader = new SitemapReader(new PageFetcher(new UserData()), 100, 1024 * 1024);
+
+        List<String> childSitemaps = reader.parse(reader.openBody(stream(URL_SET.getBytes(StandardCharsets.UTF_8))),
+                urls::put);
+
+        assertTrue(childSitemaps.isEmpty());
+        assertEquals(List.of("https://example.com/a", "https://example.com/b", "https://example.com/c"),
+                List.copyOf(urls.keySet()));
+        assertEquals(0.8, urls.get("https://example.com/a"));
+        assertEquals(CrawlFrontier.DEFAULT_WEIGHT, urls.get("https://example.com/b"));
+        assertEquals(1.0, urls.get("https://example.com/c"));
+    }
+
+    @Test
+    void readsGzippedSitemap() throws Exception {
+        SitemapReader reader = new SitemapReader(new PageFetcher(new UserData()), 100, 1024 * 1024);
+
+        reader.parse(reader.openBody(stream(gzip(URL_SET))), urls::put);
+
+        assertEquals(3, urls.size());
+    }
+
+    @Test
+    void returnsChildSitemapsOfIndex() throws Exception {
+        String index = """
+                <sitemapindex xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <sitemap><loc>https://example.com/pages.xml</loc></sitemap>
+                  <sitemap><loc>https://example.com/news.xml.gz</loc></sitemap>
+                </sitemapindex>
+                """;
+        SitemapReader reader = new SitemapReader(new PageFetcher(new UserData()), 100, 1024 * 1024);
+
+        List<String> childSitemaps = reader.parse(reader.openBody(stream(index.getBytes(StandardCharsets.UTF_8))),
+                urls::put);
+
+        assertEquals(List.of("https://example.com/pages.xml", "https://example.com/news.xml.gz"), childSitemaps);
+        assertTrue(urls.isEmpty());
+    }
+
+    @Test
+    void stopsAtUrlLimit() throws Exception {
+        SitemapReader reader = new SitemapReader(new PageFetcher(new UserData()), 2, 1024 * 1024);
+
+        reader.parse(reader.openBody(stream(URL_SET.getBytes(StandardCharsets.UTF_8))), urls::put);
+
+        assertEquals(2, urls.size());
+    }
+
+    @Test
+    void rejectsSitemapOverByteLimit() throws Exception {
+        String largeSitemap = "<urlset>" + "<url><loc>https://example.com/page</loc></url>".repeat(10_000) + "</urlset>";
+        SitemapReader reader = new SitemapReader(new PageFetcher(new UserData()), 100_000, 64 * 1024);
+
+        assertThrows(XMLStreamException.class,
+                () -> reader.parse(reader.openBody(stream(gzip(largeSitemap))), urls::put));
+        assertTrue(urls.size() < 10_000);
+    }
+
+    private InputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(bytes)) {
+            outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
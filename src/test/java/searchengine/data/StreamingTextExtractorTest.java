@@ -0,0 +1,96 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingTextExtractorTest {
+    private static final String URL = "https://example.com/catalog/item.html?id=7";
+    private static final List<String> CORPUS = List.of(
+            """
+                    <!DOCTYPE html>
+                    <html><head><title>Каталог  товаров</title></head>
+                    <body><h1>Заголовок</h1><p>Первый   абзац &amp; текст</p><div>Второй<p>вложенный</p>хвост</div></body></html>
+                    """,
+            """
+                    <html><head><base href="https://cdn.example.com/docs/"><title>Base</title></head>
+                    <body><a href="intro.html">Введение</a> <a href="../up.html">Выше</a>
+                    <a href="/root.html">Корень</a> <a href="https://other.org/x">Другой сайт</a></body></html>
+                    """,
+            """
+                    <html><body><a href="?page=2">Дальше</a><a href="">Сюда</a><a href="#top">Наверх</a>
+                    <a href="sibling.html">Соседняя</a><a href="sub/child.html?x=1&amp;y=2">Вложенная</a></body></html>
+                    """,
+            """
+                    <html><body><p>Строка один<br>строка два<br/>строка три</p></body></html>
+                    """,
+            """
+                    <html><head><script>var a = "<p>не текст</p>";</script><style>p { color: red }</style></head>
+                    <body><nav><a href="/menu">Меню</a> навигация</nav>
+                    <p>Основной текст</p>
+                    <aside>Реклама</aside><form><input name="q">Форма</form>
+                    <script>document.write("<div>скрипт</div>")</script>
+                    <footer>Подвал <a href="/contacts">Контакты</a></footer><p>После подвала</p></body></html>
+                    """,
+            """
+                    <html><body><ul><li>Один</li><li>Два <b>жирный</b> <i>курсив</i></li></ul>
+                    <table><tr><td>Ячейка 1</td><td>Ячейка 2</td></tr></table><!-- комментарий --><p>Конец</p></body></html>
+                    """
+    );
+
+    @Test
+    void agreesWithJsoupOnCorpus() {
+        for (String html : CORPUS) {
+            assertSameExtraction(new JsoupTextExtractor().extract(html, URL),
+                    new StreamingTextExtractor().extract(html, URL));
+        }
+    }
+
+    @Test
+    void agreesWithJsoupOnMetaCharset() throws Exception {
+        Charset windows1251 = Charset.forName("windows-1251");
+        byte[] body = """
+                <html><head><meta charset="windows-1251"><title>Кодировка</title></head>
+                <body><p>Текст в однобайтовой кодировке</p></body></html>
+                """.getBytes(windows1251);
+
+        HtmlTextExtractor.ExtractedPage expected = new JsoupTextExtractor().extract(body, null, URL);
+        HtmlTextExtractor.ExtractedPage actual = new StreamingTextExtractor().extract(body, null, URL);
+
+        assertSameExtraction(expected, actual);
+        assertEquals("Кодировка", actual.title());
+    }
+
+    @Test
+    void agreesWithJsoupOnHttpEquivCharset() throws Exception {
+        byte[] body = """
+                <html><head><meta http-equiv="Content-Type" content="text/html; charset=koi8-r">
+                <title>Заголовок</title></head><body><p>Текст</p></body></html>
+                """.getBytes(Charset.forName("koi8-r"));
+
+        assertSameExtraction(new JsoupTextExtractor().extract(body, null, URL),
+                new StreamingTextExtractor().extract(body, null, URL));
+    }
+
+    @Test
+    void prefersDeclaredCharsetOverMeta() throws Exception {
+        byte[] body = """
+                <html><head><meta charset="windows-1251"><title>Юникод</title></head><body><p>Текст</p></body></html>
+                """.getBytes(StandardCharsets.UTF_8);
+
+        HtmlTextExtractor.ExtractedPage actual = new StreamingTextExtractor().extract(body, "UTF-8", URL);
+
+        assertSameExtraction(new JsoupTextExtractor().extract(body, "UTF-8", URL), actual);
+        assertEquals("Юникод", actual.title());
+    }
+
+    private void assertSameExtraction(HtmlTextExtractor.ExtractedPage expected, HtmlTextExtractor.ExtractedPage actual) {
+        assertEquals(expected.title(), actual.title());
+        assertEquals(expected.bodyText(), actual.bodyText());
+        assertEquals(expected.links(), actual.links());
+    }
+}
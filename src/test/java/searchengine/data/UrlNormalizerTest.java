@@ -0,0 +1,76 @@
+package searchengine.data;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.UrlFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlNormalizerTest {
+    private final UrlNormalizer normalizer = new UrlNormalizer("https://www.example.com", new UrlFilter());
+
+    @Test
+    void canonicalizesSchemeHostAndPath() {
+        assertEquals("https://www.example.com/catalog",
+                normalizer.normalize("  http://EXAMPLE.com:80/catalog/#section "));
+        assertEquals("https://www.example.com/catalog",
+                normalizer.normalize("https://www.example.com.:443/catalog//"));
+        assertEquals("https://www.example.com/", normalizer.normalize("https://user@example.com"));
+    }
+
+    @Test
+    void rejectsOtherHostsAndSchemes() {
+        assertNull(normalizer.normalize("https://shop.example.com/"));
+        assertNull(normalizer.normalize("https://example.org/"));
+        assertNull(normalizer.normalize("mailto:info@example.com"));
+        assertNull(normalizer.normalize("ftp://example.com/file"));
+        assertNull(normalizer.normalize("/relative/path"));
+        assertNull(normalizer.normalize(null));
+    }
+
+    @Test
+    void rejectsExcludedExtensions() {
+        assertNull(normalizer.normalize("https://example.com/images/photo.JPG"));
+        assertNull(normalizer.normalize("https://example.com/files/price.pdf?v=2"));
+        assertEquals("https://www.example.com/page.html", normalizer.normalize("https://example.com/page.html"));
+        assertEquals("https://www.example.com/v1.2/docs", normalizer.normalize("https://example.com/v1.2/docs"));
+    }
+
+    @Test
+    void dropsQueryByDefault() {
+        assertEquals("https://www.example.com/search", normalizer.normalize("https://example.com/search?q=1&page=2"));
+    }
+
+    @Test
+    void sortsQueryAndRemovesTrackingParameters() {
+        UrlFilter urlFilter = new UrlFilter();
+        urlFilter.setKeepQueryParameters(true);
+        UrlNormalizer queryNormalizer = new UrlNormalizer("https://example.com", urlFilter);
+
+        assertEquals("https://example.com/search?a=1&q=2",
+                queryNormalizer.normalize("https://example.com/search?q=2&UTM_source=mail&&gclid=x&a=1&utm_medium=cpc"));
+        assertEquals("https://example.com/search",
+                queryNormalizer.normalize("https://example.com/search?utm_campaign=spring"));
+    }
+
+    @Test
+    void keepsLinksInsideRootPath() {
+        UrlNormalizer sectionNormalizer = new UrlNormalizer("https://example.com/blog/", new UrlFilter());
+
+        assertEquals("https://example.com/blog", sectionNormalizer.normalize("https://example.com/blog"));
+        assertEquals("https://example.com/blog/post", sectionNormalizer.normalize("https://example.com/blog/post/"));
+        assertNull(sectionNormalizer.normalize("https://example.com/blogger"));
+        assertNull(sectionNormalizer.normalize("https://example.com/shop"));
+    }
+
+    @Test
+    void convertsBetweenUrlsAndPaths() {
+        assertEquals("/catalog?id=1", normalizer.toPath("https://www.example.com/catalog?id=1"));
+        assertEquals("https://www.example.com/catalog", normalizer.toUrl("/catalog"));
+        assertEquals("https://www.example.com", normalizer.getOrigin());
+    }
+
+    @Test
+    void rejectsRootWithoutScheme() {
+        assertThrows(IllegalArgumentException.class, () -> new UrlNormalizer("example.com", new UrlFilter()));
+    }
+}
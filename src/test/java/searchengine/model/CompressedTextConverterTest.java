@@ -0,0 +1,32 @@
+package searchengine.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedTextConverterTest {
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void restoresCompressedText() {
+        String html = "<html><head><title>Главная</title></head><body>" + "<p>Текст страницы 😀</p>".repeat(2000)
+                + "</body></html>";
+
+        byte[] compressed = converter.convertToDatabaseColumn(html);
+
+        assertTrue(compressed.length < html.length() / 10);
+        assertEquals(html, converter.convertToEntityAttribute(compressed));
+    }
+
+    @Test
+    void keepsNullAndEmptyText() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertEquals("", converter.convertToEntityAttribute(converter.convertToDatabaseColumn("")));
+    }
+
+    @Test
+    void rejectsCorruptedContent() {
+        assertThrows(IllegalStateException.class, () -> converter.convertToEntityAttribute(new byte[]{(byte) 0xff, 1, 2}));
+    }
+}